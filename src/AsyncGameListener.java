@@ -0,0 +1,69 @@
+import java.awt.EventQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * This class represents a listener that delivers the events it receives to another listener on an executor, so the
+ * game only pays for queuing the events.
+ * <p>The events are delivered in the order they were emitted and one at a time, even if the executor runs tasks
+ * concurrently, so the target listener needs no synchronization. Since they are delivered after the game has moved on,
+ * the target should rely on the events rather than on the game's current state, which it may change from the
+ * executor's thread if the game is only changed from that thread (e.g. the event dispatch thread of a GUI, see
+ * {@link #onEventDispatchThread}).</p>
+ */
+public class AsyncGameListener implements GameListener {
+    private final GameListener target;
+    private final SerialExecutor events;
+
+    /**
+     * Constructs a listener delivering the events to another listener on an executor.
+     * @param target the listener the events are delivered to
+     * @param executor the executor on which the events are delivered
+     */
+    public AsyncGameListener(GameListener target, Executor executor) {
+        this.target = target;
+        events = new SerialExecutor(executor);
+    }
+
+    /**
+     * Constructs a listener delivering the events to another listener on the AWT event dispatch thread.
+     * @param target the listener the events are delivered to
+     * @return the asynchronous listener
+     */
+    public static AsyncGameListener onEventDispatchThread(GameListener target) {
+        return new AsyncGameListener(target, EventQueue::invokeLater);
+    }
+
+    private void post(Runnable event) {
+        events.execute(event);
+    }
+
+    @Override
+    public void pieceMoved(int move) {
+        post(() -> target.pieceMoved(move));
+    }
+
+    @Override
+    public void pieceCaptured(int square) {
+        post(() -> target.pieceCaptured(square));
+    }
+
+    @Override
+    public void moveUndone(int move) {
+        post(() -> target.moveUndone(move));
+    }
+
+    @Override
+    public void captureUndone(int square) {
+        post(() -> target.captureUndone(square));
+    }
+
+    @Override
+    public void gameWon(Player winner) {
+        post(() -> target.gameWon(winner));
+    }
+
+    @Override
+    public void gameReset() {
+        post(target::gameReset);
+    }
+}
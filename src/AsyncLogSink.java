@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class represents a log sink that hands the text written to it to a background thread, which writes it into
+ * another sink in batches. Writers only pay for enqueuing the text, so logging stays off the move path.
+ * <p>The text is written to the target sink in the order it was written to this sink. The target is flushed whenever
+ * the queue runs empty, so the output lags behind by at most one batch. If the queue is full, writers wait for the
+ * background thread to catch up.</p>
+ * <p>The sink is thread-safe, even if the target sink isn't, since only the background thread uses the target.</p>
+ */
+public class AsyncLogSink implements LogSink {
+    /**
+     * The default capacity of the queue, in writes.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Object CLOSE = new Object();   // queued to stop the background thread
+
+    private final LogSink target;
+    private final BlockingQueue<Object> queue;   // holds texts, flush latches and CLOSE
+    private final Thread writer;
+    // writers enqueue under the read lock and close under the write lock, so nothing is queued after CLOSE
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed = false;     // guarded by closeLock
+    private volatile RuntimeException failure = null;  // the error that stopped the background thread, if any
+
+    /**
+     * Constructs a sink writing into another sink on a background thread, with a queue of {@link #DEFAULT_CAPACITY}.
+     * @param target the sink to write into, which is closed when this sink is closed
+     */
+    public AsyncLogSink(LogSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a sink writing into another sink on a background thread.
+     * @param target the sink to write into, which is closed when this sink is closed
+     * @param capacity the number of writes that may wait for the background thread before writers are blocked
+     */
+    public AsyncLogSink(LogSink target, int capacity) {
+        this.target = target;
+        queue = new ArrayBlockingQueue<>(capacity);
+        writer = new Thread(this::run, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object item : batch) {
+                    if (item == CLOSE) return;
+                    if (item instanceof CountDownLatch latch) {
+                        target.flush();
+                        latch.countDown();
+                    } else {
+                        target.write((String) item);
+                    }
+                }
+                batch.clear();
+                if (queue.isEmpty()) target.flush();
+            }
+        } catch (InterruptedException e) {
+            failure = new IllegalStateException("Log writer was interrupted", e);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            // release any flush waiting for this thread
+            for (Object item : batch) if (item instanceof CountDownLatch latch) latch.countDown();
+            for (Object item : queue) if (item instanceof CountDownLatch latch) latch.countDown();
+        }
+    }
+
+    private void enqueue(Object item) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) throw new IllegalStateException("Log sink is closed");
+            offer(item);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void offer(Object item) {
+        try {
+            // check for a failure of the background thread while waiting, since a failed thread never makes room
+            do checkFailure(); while (!queue.offer(item, 100, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while logging", e);
+        }
+    }
+
+    private void checkFailure() {
+        RuntimeException e = failure;
+        if (e != null) throw new IllegalStateException("Log writer failed", e);
+    }
+
+    @Override
+    public void write(String text) {
+        enqueue(text);
+    }
+
+    /**
+     * Waits until all the text written so far has been written and flushed into the target sink.
+     */
+    @Override
+    public void flush() {
+        CountDownLatch latch = new CountDownLatch(1);
+        enqueue(latch);
+        try {
+            while (!latch.await(100, TimeUnit.MILLISECONDS)) checkFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while flushing log", e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Writes all the pending text into the target sink, stops the background thread and closes the target.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            if (failure == null) offer(CLOSE);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while closing log", e);
+        }
+        target.close();
+        checkFailure();
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * This class represents a set of board squares as a 128-bit mask, held in two {@code long} words.
+ * <br>Square {@code s} (see {@link #square}) is bit {@code s % 64} of {@code lo} if {@code s < 64}, and of {@code hi}
+ * otherwise.
+ * <p>The class also holds the precomputed board geometry used by the game engine: neighbour squares, capture target
+ * and assist squares, rays and corner/neighbourhood masks, all indexed by square.</p>
+ */
+public final class BitBoard {
+    private static final int BOARD_SIZE = GameLogic.BOARD_SIZE;
+    /**
+     * The number of squares on the board.
+     */
+    public static final int NUM_SQUARES = BOARD_SIZE * BOARD_SIZE;
+
+    /**
+     * Direction indices, in the order captures are attempted by {@link GameLogic#move}.
+     */
+    public static final int LEFT = 0, RIGHT = 1, UP = 2, DOWN = 3;
+    private static final int[] DX = { -1, 1, 0, 0 };
+    private static final int[] DY = { 0, 0, -1, 1 };
+
+    // NEIGHBOUR[s * 4 + d] is the square next to s in direction d, or -1 if that is outside the board
+    private static final int[] NEIGHBOUR = new int[NUM_SQUARES * 4];
+    // RAY_LO/HI[s * 4 + d] is the mask of all squares from s (exclusive) to the edge of the board in direction d
+    private static final long[] RAY_LO = new long[NUM_SQUARES * 4];
+    private static final long[] RAY_HI = new long[NUM_SQUARES * 4];
+    // RAY_SQUARES[(s * 4 + d) * RAY_STRIDE + i] is the i-th square from s in direction d, for i < RAY_LENGTH[s * 4 + d]
+    private static final int RAY_STRIDE = BOARD_SIZE - 1;
+    private static final int[] RAY_SQUARES = new int[NUM_SQUARES * 4 * RAY_STRIDE];
+    private static final int[] RAY_LENGTH = new int[NUM_SQUARES * 4];
+    // CAPTURE_TARGET[s * 4 + d] is the square a pawn on s may capture in direction d, or -1 if that square is outside
+    // the board or a corner (which never holds a pawn)
+    private static final int[] CAPTURE_TARGET = new int[NUM_SQUARES * 4];
+    // CAPTURE_ASSIST[s * 4 + d] is the square beyond the captured one, which must hold an allied pawn for the capture,
+    // or -1 if the captured pawn is against the edge or a corner, which assist any capture
+    private static final int[] CAPTURE_ASSIST = new int[NUM_SQUARES * 4];
+    // NEIGHBOURS_LO/HI[s] is the mask of all squares orthogonally adjacent to s
+    private static final long[] NEIGHBOURS_LO = new long[NUM_SQUARES];
+    private static final long[] NEIGHBOURS_HI = new long[NUM_SQUARES];
+
+    /**
+     * The mask of the four corners of the board.
+     */
+    public static final BitBoard CORNERS = new BitBoard();
+
+    static {
+        for (int y = 0; y < BOARD_SIZE; ++y) {
+            for (int x = 0; x < BOARD_SIZE; ++x) {
+                int s = square(x, y);
+                if (isCorner(x, y)) CORNERS.set(s);
+                for (int d = 0; d < 4; ++d) {
+                    int nX = x + DX[d], nY = y + DY[d];
+                    NEIGHBOUR[s * 4 + d] = Position.isInsideBoard(nX, nY) ? square(nX, nY) : -1;
+                    if (NEIGHBOUR[s * 4 + d] >= 0) {
+                        if (NEIGHBOUR[s * 4 + d] < 64) NEIGHBOURS_LO[s] |= 1L << NEIGHBOUR[s * 4 + d];
+                        else NEIGHBOURS_HI[s] |= 1L << (NEIGHBOUR[s * 4 + d] - 64);
+                    }
+                    int target = NEIGHBOUR[s * 4 + d];
+                    int assist = Position.isInsideBoard(nX + DX[d], nY + DY[d]) ? square(nX + DX[d], nY + DY[d]) : -1;
+                    CAPTURE_TARGET[s * 4 + d] = target >= 0 && !isCorner(nX, nY) ? target : -1;
+                    CAPTURE_ASSIST[s * 4 + d] = assist >= 0 && !isCorner(nX + DX[d], nY + DY[d]) ? assist : -1;
+                    for (int rX = nX, rY = nY; Position.isInsideBoard(rX, rY); rX += DX[d], rY += DY[d]) {
+                        int r = square(rX, rY);
+                        RAY_SQUARES[(s * 4 + d) * RAY_STRIDE + RAY_LENGTH[s * 4 + d]++] = r;
+                        if (r < 64) RAY_LO[s * 4 + d] |= 1L << r;
+                        else RAY_HI[s * 4 + d] |= 1L << (r - 64);
+                    }
+                }
+            }
+        }
+    }
+
+    long lo;
+    long hi;
+
+    /**
+     * Constructs an empty mask.
+     */
+    public BitBoard() { }
+
+    /**
+     * Returns the square index of a pair of coordinates, which is consistent with {@link Position#hashCode}.
+     * @param x x coordinate of the square
+     * @param y y coordinate of the square
+     * @return the index of the square, between 0 and {@link #NUM_SQUARES} (exclusive)
+     */
+    public static int square(int x, int y) {
+        return x + y * BOARD_SIZE;
+    }
+
+    private static boolean isCorner(int x, int y) {
+        return x % (BOARD_SIZE - 1) == 0 && y % (BOARD_SIZE - 1) == 0;
+    }
+
+    /**
+     * Returns the square next to {@code s} in direction {@code d}.
+     * @param s the square to start from
+     * @param d one of {@link #LEFT}, {@link #RIGHT}, {@link #UP}, {@link #DOWN}
+     * @return the neighbouring square, or -1 if it lies outside the board
+     */
+    public static int neighbour(int s, int d) {
+        return NEIGHBOUR[s * 4 + d];
+    }
+
+    /**
+     * Returns the square a pawn on {@code s} may capture in direction {@code d}.
+     * @param s the square of the capturing pawn
+     * @param d the direction of the capture
+     * @return the square next to {@code s} in direction {@code d}, or -1 if it is outside the board or a corner
+     */
+    public static int captureTarget(int s, int d) {
+        return CAPTURE_TARGET[s * 4 + d];
+    }
+
+    /**
+     * Returns the square that must hold an allied pawn for a pawn on {@code s} to capture in direction {@code d}.
+     * @param s the square of the capturing pawn
+     * @param d the direction of the capture
+     * @return the square two steps from {@code s} in direction {@code d}, or -1 if it is outside the board or a corner,
+     * in which case the capture needs no assist
+     */
+    public static int captureAssist(int s, int d) {
+        return CAPTURE_ASSIST[s * 4 + d];
+    }
+
+    /**
+     * Returns the number of squares between {@code s} (exclusive) and the edge of the board in direction {@code d}.
+     * @param s the square to start from
+     * @param d the direction of the ray
+     * @return the length of the ray
+     */
+    public static int rayLength(int s, int d) {
+        return RAY_LENGTH[s * 4 + d];
+    }
+
+    /**
+     * Returns a square on the ray from {@code s} in direction {@code d}.
+     * @param s the square the ray starts from
+     * @param d the direction of the ray
+     * @param i the distance from {@code s} minus one, must be less than {@link #rayLength}
+     * @return the {@code i}-th square on the ray, nearest first
+     */
+    public static int raySquare(int s, int d, int i) {
+        return RAY_SQUARES[(s * 4 + d) * RAY_STRIDE + i];
+    }
+
+    /**
+     * Returns the direction in which a straight move from {@code from} to {@code to} travels.
+     * @param from the starting square
+     * @param to the destination square, must be on the same row or column as {@code from} and different from it
+     * @return the direction of the move
+     */
+    public static int direction(int from, int to) {
+        if (from / BOARD_SIZE == to / BOARD_SIZE) return to > from ? RIGHT : LEFT;
+        return to > from ? DOWN : UP;
+    }
+
+    /**
+     * Checks whether a straight move from {@code from} to {@code to} is blocked by a square of {@code occupied}.
+     * <br>The squares checked are the ones passed over and the destination itself.
+     * @param from the starting square
+     * @param to the destination square, must be on the same row or column as {@code from} and different from it
+     * @param occupied the mask of blocking squares
+     * @return true if any square on the path is in {@code occupied}
+     */
+    public static boolean isPathBlocked(int from, int to, BitBoard occupied) {
+        int d = direction(from, to);
+        // the ray from the source minus the ray from the destination leaves exactly the path, destination included
+        long pathLo = RAY_LO[from * 4 + d] ^ RAY_LO[to * 4 + d];
+        long pathHi = RAY_HI[from * 4 + d] ^ RAY_HI[to * 4 + d];
+        return ((pathLo & occupied.lo) | (pathHi & occupied.hi)) != 0;
+    }
+
+    /**
+     * Checks whether every in-board neighbour of {@code s} is in {@code mask}.
+     * @param s the square whose neighbourhood is checked
+     * @param mask the mask to check against
+     * @return true if {@code s} is surrounded by {@code mask} and the board's edges
+     */
+    public static boolean isSurrounded(int s, BitBoard mask) {
+        return (NEIGHBOURS_LO[s] & ~mask.lo) == 0 && (NEIGHBOURS_HI[s] & ~mask.hi) == 0;
+    }
+
+    /**
+     * Checks whether a square is in the mask.
+     * @param s the square to check
+     * @return true if {@code s} is in the mask
+     */
+    public boolean get(int s) {
+        return s < 64 ? (lo & (1L << s)) != 0 : (hi & (1L << (s - 64))) != 0;
+    }
+
+    /**
+     * Adds a square to the mask.
+     * @param s the square to add
+     */
+    public void set(int s) {
+        if (s < 64) lo |= 1L << s;
+        else hi |= 1L << (s - 64);
+    }
+
+    /**
+     * Removes a square from the mask.
+     * @param s the square to remove
+     */
+    public void clear(int s) {
+        if (s < 64) lo &= ~(1L << s);
+        else hi &= ~(1L << (s - 64));
+    }
+
+    /**
+     * Sets this mask to hold exactly the squares of another mask.
+     * @param other the mask to copy
+     */
+    public void copyFrom(BitBoard other) {
+        lo = other.lo;
+        hi = other.hi;
+    }
+
+    /**
+     * Removes all squares from the mask.
+     */
+    public void clearAll() {
+        lo = 0;
+        hi = 0;
+    }
+
+    /**
+     * Returns the lowest square in the mask.
+     * @return the lowest square in the mask, or {@link #NUM_SQUARES} or more if the mask is empty
+     */
+    public int first() {
+        return lo != 0 ? Long.numberOfTrailingZeros(lo) : 64 + Long.numberOfTrailingZeros(hi);
+    }
+
+    /**
+     * Returns the number of squares in the mask.
+     * @return the number of squares in the mask
+     */
+    public int count() {
+        return Long.bitCount(lo) + Long.bitCount(hi);
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class represents an initial board layout: the pieces on the board at the start of a game, each with its square,
+ * kind (as defined in {@link Zobrist}) and ID.
+ * <p>Layouts are immutable and are parsed once per resource (see {@link #of}), along with the board state they
+ * describe, so starting or resetting a game copies the state instead of parsing the resource again.</p>
+ */
+public final class BoardLayout {
+    private static final Map<String, BoardLayout> CACHE = new ConcurrentHashMap<>();
+
+    private final byte[] squares;   // square of each piece, in increasing order
+    private final byte[] kinds;     // kind of each piece
+    private final int[] ids;        // ID of each piece
+    // the board state of the layout, in the representation of GameLogic: index of the piece on each square or -1, and
+    // occupancy masks, which are never changed once constructed
+    private final byte[] board = new byte[BitBoard.NUM_SQUARES];
+    private final BitBoard attackers = new BitBoard();
+    private final BitBoard defenders = new BitBoard();
+    private final BitBoard occupied = new BitBoard();
+    private final int kingSquare;
+    private final long hash;
+
+    /**
+     * Constructs a layout from its pieces, given in any order.
+     * @param squares the square of each piece, see {@link BitBoard#square}
+     * @param kinds the kind of each piece, as defined in {@link Zobrist}
+     * @param ids the ID of each piece
+     * @throws IllegalArgumentException if two pieces share a square, or there isn't exactly one king
+     */
+    BoardLayout(int[] squares, int[] kinds, int[] ids) {
+        int n = squares.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; ++i) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(squares[a], squares[b]));
+        this.squares = new byte[n];
+        this.kinds = new byte[n];
+        this.ids = new int[n];
+        Arrays.fill(board, (byte) -1);
+        int king = -1;
+        long h = 0;     // an empty board with player 2 to move
+        for (int i = 0; i < n; ++i) {
+            int s = squares[order[i]];
+            if (board[s] != -1) throw new IllegalArgumentException("Two pieces on square " + s);
+            this.squares[i] = (byte) s;
+            this.kinds[i] = (byte) kinds[order[i]];
+            this.ids[i] = ids[order[i]];
+            board[s] = (byte) i;
+            occupied.set(s);
+            switch (kinds[order[i]]) {
+                case Zobrist.ATTACKER_PAWN -> attackers.set(s);
+                case Zobrist.DEFENDER_PAWN -> defenders.set(s);
+                case Zobrist.KING -> {
+                    if (king >= 0) throw new IllegalArgumentException("Board must hold exactly one king");
+                    king = s;
+                }
+                default -> throw new IllegalArgumentException("Unknown piece kind");
+            }
+            h ^= Zobrist.key(kinds[order[i]], s);
+        }
+        if (king < 0) throw new IllegalArgumentException("Board must hold exactly one king");
+        kingSquare = king;
+        hash = h;
+    }
+
+    /**
+     * Returns the layout of a resource file, parsing it on first use.
+     * @param resourcePath the path of the resource file, in the format of {@link BoardStateLoader#loadFile}
+     * @return the layout of the resource
+     * @throws RuntimeException if the resource can't be read
+     * @throws IllegalArgumentException if the resource is not in the correct format or doesn't hold exactly one king
+     */
+    public static BoardLayout of(String resourcePath) {
+        return CACHE.computeIfAbsent(resourcePath, BoardStateLoader::loadLayout);
+    }
+
+    /**
+     * Returns the number of pieces in the layout.
+     * @return the number of pieces
+     */
+    public int size() {
+        return squares.length;
+    }
+
+    /**
+     * Returns the square of a piece.
+     * @param i the index of the piece, pieces are indexed in increasing order of their squares
+     * @return the square of the piece, see {@link BitBoard#square}
+     */
+    public int square(int i) {
+        return squares[i];
+    }
+
+    /**
+     * Returns the kind of a piece.
+     * @param i the index of the piece
+     * @return the kind of the piece, as defined in {@link Zobrist}
+     */
+    public int kind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * Returns the ID of a piece.
+     * @param i the index of the piece
+     * @return the ID of the piece
+     */
+    public int id(int i) {
+        return ids[i];
+    }
+
+    /**
+     * Returns the square of the king.
+     * @return the square of the king, see {@link BitBoard#square}
+     */
+    public int kingSquare() {
+        return kingSquare;
+    }
+
+    /**
+     * Returns the Zobrist hash of the layout with player 2 to move, see {@link GameLogic#getHash()}.
+     * @return the hash of the layout
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Constructs the pieces of the layout, in the order of their indices, each starting at its square.
+     * @param p1 owner of the defender pieces
+     * @param p2 owner of the attacker pieces
+     * @return a new array of pieces
+     */
+    ConcretePiece[] newPieces(Player p1, Player p2) {
+        ConcretePiece[] pieces = new ConcretePiece[size()];
+        for (int i = 0; i < pieces.length; ++i) {
+            Position pos = Position.of(squares[i]);
+            pieces[i] = switch (kinds[i]) {
+                case Zobrist.KING -> new King(p1, ids[i], pos);
+                case Zobrist.DEFENDER_PAWN -> new Pawn(p1, ids[i], pos);
+                default -> new Pawn(p2, ids[i], pos);
+            };
+        }
+        return pieces;
+    }
+
+    /**
+     * Copies the board state of the layout into a game's board representation.
+     * @param board the index of the piece on each square, or -1 if it is empty
+     * @param attackers mask of the attacker pawns
+     * @param defenders mask of the defender pawns, without the king
+     * @param occupied mask of all the pieces
+     */
+    void copyTo(byte[] board, BitBoard attackers, BitBoard defenders, BitBoard occupied) {
+        System.arraycopy(this.board, 0, board, 0, board.length);
+        attackers.copyFrom(this.attackers);
+        defenders.copyFrom(this.defenders);
+        occupied.copyFrom(this.occupied);
+    }
+}
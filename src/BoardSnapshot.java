@@ -0,0 +1,69 @@
+/**
+ * This record represents an immutable snapshot of a game's board state, as published by {@link GameLogic} after every
+ * change to the game (see {@link GameLogic#setSnapshotsEnabled}).
+ * <p>A snapshot is a consistent view of the board that never changes, so it can be read by any thread and handed to
+ * other threads without locking or copying.</p>
+ * <p>Pawns are held as 128-bit masks in the layout of {@link BitBoard}: square {@code s} (see {@link BitBoard#square})
+ * is bit {@code s} of the low half if {@code s < 64}, and bit {@code s - 64} of the high half otherwise. Players are
+ * numbered 1 (the defender) and 2 (the attacker).</p>
+ * @param attackersLo the low half of the mask of the attacker pawns
+ * @param attackersHi the high half of the mask of the attacker pawns
+ * @param defendersLo the low half of the mask of the defender pawns, the king is not included
+ * @param defendersHi the high half of the mask of the defender pawns
+ * @param kingSquare the square of the king
+ * @param turn the number of the player whose turn it is
+ * @param winner the number of the player that has won, or 0 if no player has won yet
+ * @param moves the number of moves in the game's history
+ * @param hash the Zobrist hash of the board state, see {@link GameLogic#getHash()}
+ */
+public record BoardSnapshot(long attackersLo, long attackersHi, long defendersLo, long defendersHi, int kingSquare,
+                            int turn, int winner, int moves, long hash) {
+    private static boolean get(long lo, long hi, int s) {
+        return s < 64 ? (lo & (1L << s)) != 0 : (hi & (1L << (s - 64))) != 0;
+    }
+
+    /**
+     * Checks whether an attacker pawn is on a square.
+     * @param s the square to check, see {@link BitBoard#square}
+     * @return true if an attacker pawn is on {@code s}
+     */
+    public boolean isAttacker(int s) {
+        return get(attackersLo, attackersHi, s);
+    }
+
+    /**
+     * Checks whether a defender pawn is on a square.
+     * @param s the square to check, see {@link BitBoard#square}
+     * @return true if a defender pawn (not the king) is on {@code s}
+     */
+    public boolean isDefender(int s) {
+        return get(defendersLo, defendersHi, s);
+    }
+
+    /**
+     * Checks whether any piece is on a square.
+     * @param s the square to check, see {@link BitBoard#square}
+     * @return true if a piece is on {@code s}
+     */
+    public boolean isOccupied(int s) {
+        return s == kingSquare || isAttacker(s) || isDefender(s);
+    }
+
+    /**
+     * Returns the number of pawns of a player.
+     * @param player the number of the player
+     * @return the number of pawns the player has on the board, the king is not counted
+     */
+    public int pawnCount(int player) {
+        return player == 1 ? Long.bitCount(defendersLo) + Long.bitCount(defendersHi)
+                : Long.bitCount(attackersLo) + Long.bitCount(attackersHi);
+    }
+
+    /**
+     * Checks whether the game has ended in this state.
+     * @return true if a player has won
+     */
+    public boolean isGameFinished() {
+        return winner != 0;
+    }
+}
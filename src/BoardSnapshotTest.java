@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardSnapshotTest {
+    // the Zobrist hash of a snapshot's board state, computed from its masks as described in Zobrist
+    private static long hashOf(BoardSnapshot snapshot) {
+        long hash = snapshot.turn() == 1 ? Zobrist.DEFENDER_TO_MOVE : 0;
+        for (int s = 0; s < BitBoard.NUM_SQUARES; ++s) {
+            if (s == snapshot.kingSquare()) hash ^= Zobrist.key(Zobrist.KING, s);
+            if (snapshot.isAttacker(s)) hash ^= Zobrist.key(Zobrist.ATTACKER_PAWN, s);
+            if (snapshot.isDefender(s)) hash ^= Zobrist.key(Zobrist.DEFENDER_PAWN, s);
+        }
+        return hash;
+    }
+
+    private static int playerNumber(Player player) {
+        return player == null ? 0 : player.isPlayerOne() ? 1 : 2;
+    }
+
+    private static void assertMatches(GameLogic game, BoardSnapshot snapshot) {
+        for (int s = 0; s < BitBoard.NUM_SQUARES; ++s) {
+            assertEquals(game.isOccupied(s), snapshot.isOccupied(s), "square " + s);
+            assertEquals(game.isAttacker(s), snapshot.isAttacker(s), "square " + s);
+            assertEquals(game.isOccupied(s) && !game.isAttacker(s) && s != game.getKingSquare(),
+                    snapshot.isDefender(s), "square " + s);
+        }
+        assertEquals(game.getKingSquare(), snapshot.kingSquare());
+        assertEquals(playerNumber(game.getCurrentPlayer()), snapshot.turn());
+        assertEquals(playerNumber(game.getWinner()), snapshot.winner());
+        assertEquals(game.isGameFinished(), snapshot.isGameFinished());
+        assertEquals(game.getHistoryLength(), snapshot.moves());
+        assertEquals(game.getHash(), snapshot.hash());
+        assertEquals(game.getPawnCount(game.getFirstPlayer()), snapshot.pawnCount(1));
+        assertEquals(game.getPawnCount(game.getSecondPlayer()), snapshot.pawnCount(2));
+    }
+
+    private static GameLogic newGame() {
+        GameLogic game = new GameLogic();
+        game.setLoggingEnabled(false);
+        return game;
+    }
+
+    // performs a random move, an undo or a reset
+    private static void randomAction(GameLogic game, SplittableRandom random, int[] moves) {
+        int n = game.isGameFinished() ? 0 : game.generateMoves(game.getCurrentPlayer(), moves);
+        if (n == 0 || game.getHistoryLength() > 200) {
+            game.reset();
+        } else if (game.getHistoryLength() > 0 && random.nextInt(4) == 0) {
+            game.undoLastMove();
+        } else {
+            int move = moves[random.nextInt(n)];
+            assertTrue(game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move))));
+        }
+    }
+
+    @Test
+    void testSnapshotMatchesGame() {
+        GameLogic game = newGame();
+        assertMatches(game, game.getSnapshot());    // taken on demand while disabled
+        game.setSnapshotsEnabled(true);
+        assertMatches(game, game.getSnapshot());
+        SplittableRandom random = new SplittableRandom(17);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        for (int i = 0; i < 5_000; ++i) {
+            BoardSnapshot before = game.getSnapshot();
+            long hashBefore = before.hash();
+            randomAction(game, random, moves);
+            BoardSnapshot after = game.getSnapshot();
+            assertMatches(game, after);
+            assertNotSame(before, after);
+            assertEquals(hashBefore, before.hash());    // an old snapshot never changes
+        }
+    }
+
+    @Test
+    void testSearchMovesAreNotPublished() {
+        GameLogic game = newGame();
+        game.setSnapshotsEnabled(true);
+        BoardSnapshot published = game.getSnapshot();
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        game.generateMoves(game.getCurrentPlayer(), moves);
+        game.makeMove(moves[0]);
+        assertSame(published, game.getSnapshot());
+        game.unmakeMove();
+        game.setSnapshotsEnabled(false);
+        assertMatches(game, game.getSnapshot());
+    }
+
+    @Test
+    void testReaderSeesConsistentSnapshots() throws InterruptedException {
+        GameLogic game = newGame();
+        game.setSnapshotsEnabled(true);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong inconsistent = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                BoardSnapshot snapshot = game.getSnapshot();
+                if (hashOf(snapshot) != snapshot.hash() || !snapshot.isOccupied(snapshot.kingSquare())
+                        || ((snapshot.attackersLo() & snapshot.defendersLo()) | (snapshot.attackersHi()
+                        & snapshot.defendersHi())) != 0) inconsistent.incrementAndGet();
+                reads.incrementAndGet();
+            }
+        });
+        reader.start();
+        SplittableRandom random = new SplittableRandom(23);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        try {
+            for (int i = 0; i < 50_000; ++i) randomAction(game, random, moves);
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        assertTrue(reads.get() > 0);
+        assertEquals(0, inconsistent.get(), "of " + reads.get() + " snapshots read");
+    }
+}
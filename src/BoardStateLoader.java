@@ -3,7 +3,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -13,6 +15,10 @@ import java.util.regex.Pattern;
  * into a board.
  */
 public class BoardStateLoader {
+    private static final Pattern LINE = Pattern.compile(
+            "\\((?<x>\\d+),(?<y>\\d+)\\)->(?<player>[12])(?<type>[pk])(?<id>\\d+)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+
     private final Player p1;
     private final Player p2;
 
@@ -40,37 +46,85 @@ public class BoardStateLoader {
      * @throws IllegalArgumentException if a line does not match the format
      */
     public Map<Position, Piece> loadFile(String resourcePath) {
+        Map<Position, Piece> result = new HashMap<>();
+        for (String line : readLines(resourcePath)) {
+            AbstractMap.Entry<Position, Piece> entry = parseLine(line);
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Loads a board layout from a resource file in the format of {@link #loadFile}.
+     * <br>Games should get layouts through {@link BoardLayout#of}, which only loads each resource once.
+     * @param resourcePath the path to the resource file to be parsed
+     * @return the layout of the loaded pieces
+     * @throws RuntimeException if there was an error opening or reading the resource
+     * @throws IllegalArgumentException if a line does not match the format, two pieces share a square, a king is owned
+     * by player 2, or there isn't exactly one king
+     */
+    public static BoardLayout loadLayout(String resourcePath) {
+        List<String> lines = readLines(resourcePath);
+        int[] squares = new int[lines.size()];
+        int[] kinds = new int[lines.size()];
+        int[] ids = new int[lines.size()];
+        for (int i = 0; i < lines.size(); ++i) {
+            Matcher matcher = matchLine(lines.get(i));
+            squares[i] = BitBoard.square(Integer.parseInt(matcher.group("x")), Integer.parseInt(matcher.group("y")));
+            boolean playerOne = matcher.group("player").equals("1");
+            if (matcher.group("type").equals("k")) {
+                if (!playerOne) throw new IllegalArgumentException("Cannot create king owned by player 2");
+                kinds[i] = Zobrist.KING;
+            } else {
+                kinds[i] = playerOne ? Zobrist.DEFENDER_PAWN : Zobrist.ATTACKER_PAWN;
+            }
+            ids[i] = Integer.parseInt(matcher.group("id"));
+        }
+        return new BoardLayout(squares, kinds, ids);
+    }
+
+    /**
+     * Reads the non-empty lines of a resource file.
+     * @throws RuntimeException if there was an error opening or reading the resource
+     */
+    private static List<String> readLines(String resourcePath) {
         InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath);
         if (stream == null) {
             throw new RuntimeException("Resource does not exists: " + resourcePath);
         }
-        BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
-        Map<Position, Piece> result = new HashMap<>();
-        String line;
-        try {
-            line = reader.readLine();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+            String line = reader.readLine();
             while (line != null) {
-                if (!line.isEmpty()) {
-                    AbstractMap.Entry<Position, Piece> entry = parseLine(line);
-                    result.put(entry.getKey(), entry.getValue());
-                }
+                if (!line.isEmpty()) lines.add(line);
                 line = reader.readLine();
             }
         } catch (IOException e) {
             throw new RuntimeException("Error reading resource: " + resourcePath);
         }
-        return result;
+        return lines;
     }
 
-    private Map.Entry<Position,Piece> parseLine(String line) {
-        Pattern pattern = Pattern.compile(
-                "\\((?<x>\\d+),(?<y>\\d+)\\)->(?<player>[12])(?<type>[pk])(?<id>\\d+)");
-        Matcher matcher = pattern.matcher(line.replaceAll("\\s", ""));
+    /**
+     * Matches a line against the format, checking that its position is inside the board.
+     * @throws IllegalArgumentException if the line does not match the format
+     */
+    private static Matcher matchLine(String line) {
+        Matcher matcher = LINE.matcher(WHITESPACE.matcher(line).replaceAll(""));
         if (!matcher.matches()) {
             throw new IllegalArgumentException("Line does not match format");
         }
-        Position pos = new Position(Integer.parseInt(matcher.group("x")),
-                                    Integer.parseInt(matcher.group("y")));
+        int x = Integer.parseInt(matcher.group("x"));
+        int y = Integer.parseInt(matcher.group("y"));
+        if (!Position.isInsideBoard(x, y)) {
+            throw new IllegalArgumentException("Position is outside the board");
+        }
+        return matcher;
+    }
+
+    private Map.Entry<Position,Piece> parseLine(String line) {
+        Matcher matcher = matchLine(line);
+        Position pos = Position.of(Integer.parseInt(matcher.group("x")), Integer.parseInt(matcher.group("y")));
         Piece pie = parsePiece(matcher, pos);
         return new AbstractMap.SimpleEntry<>(pos, pie);
     }
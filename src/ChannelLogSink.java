@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents a log sink that writes UTF-8 text into a {@code FileChannel} through a direct buffer, so the
+ * text is copied to the file without going through any stream or writer layers.
+ * <br>The sink is thread-safe.
+ */
+public class ChannelLogSink implements LogSink {
+    /**
+     * The default size of the buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a sink writing into a channel through a buffer of {@link #DEFAULT_BUFFER_SIZE} bytes.
+     * @param channel the channel to write into, which is closed when the sink is closed
+     */
+    public ChannelLogSink(FileChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a sink writing into a channel through a buffer.
+     * @param channel the channel to write into, which is closed when the sink is closed
+     * @param bufferSize the size of the buffer in bytes
+     */
+    public ChannelLogSink(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Opens a sink appending to a file, which is created if it doesn't exist.
+     * @param path the path of the file
+     * @return the file sink
+     * @throws IOException if the file can't be opened
+     */
+    public static ChannelLogSink open(Path path) throws IOException {
+        return new ChannelLogSink(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND));
+    }
+
+    @Override
+    public synchronized void write(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (bytes.length > buffer.remaining()) drain();
+            if (bytes.length > buffer.capacity()) {     // too big to buffer, write it directly
+                ByteBuffer direct = ByteBuffer.wrap(bytes);
+                while (direct.hasRemaining()) channel.write(direct);
+            } else {
+                buffer.put(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing log", e);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error flushing log", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try (channel) {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error closing log", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Stack;
+import java.util.List;
 
 /**
  * This abstract class represents a piece that can be placed on the board.
@@ -11,11 +12,12 @@ public abstract class ConcretePiece implements Piece {
      * The identification number of the piece, for logging purposes only.
      */
     private final int id;
-    private final Stack<Position> moveHistory = new Stack<>();
+    private final List<Position> moveHistory = new ArrayList<>();
+    private int totalMoveDist = 0;  // running total of the distances in moveHistory, kept by addMove() and undoMove()
 
     /**
-     * Constructs a new piece with the specified parameters, note that {@code startPos} is only used to update histories
-     * for logging and updates both the piece and the position.
+     * Constructs a new piece with the specified parameters, note that {@code startPos} is only used to update the
+     * piece's history for logging.
      * @param owner owner to be assigned to the piece
      * @param id ID to be assigned for the piece, for logging purposes only
      * @param startPos initial position of the piece, to be added to the move history
@@ -23,8 +25,7 @@ public abstract class ConcretePiece implements Piece {
     public ConcretePiece(Player owner, int id, Position startPos) {
         this.owner = owner;
         this.id = id;
-        moveHistory.push(startPos);
-        startPos.stepHere(this);
+        moveHistory.add(startPos);
     }
     @Override
     public Player getOwner() {
@@ -36,21 +37,17 @@ public abstract class ConcretePiece implements Piece {
      * @param pos position onto the piece moved
      */
     public void addMove(Position pos) {
-        moveHistory.push(pos);
+        totalMoveDist += Position.straightDist(moveHistory.get(moveHistory.size() - 1), pos);
+        moveHistory.add(pos);
     }
 
     /**
      * Returns the total move distance of the piece over its life in squares.
+     * <br>The distance is kept as a running total, so this method is constant-time.
      * @return total squares moved over the piece's life
      */
     public int getTotalMoveDist() {
-        int result = 0;
-        Position prev = null;
-        for (Position pos : moveHistory) {
-            result += Position.straightDist(prev, pos);
-            prev = pos;
-        }
-        return result;
+        return totalMoveDist;
     }
 
     /**
@@ -77,7 +74,19 @@ public abstract class ConcretePiece implements Piece {
      */
     public void undoMove() {
         if (moveHistory.size() <= 1) throw new RuntimeException("Trying to undo initial location");
-        moveHistory.pop();
+        Position pos = moveHistory.remove(moveHistory.size() - 1);
+        totalMoveDist -= Position.straightDist(moveHistory.get(moveHistory.size() - 1), pos);
+    }
+
+    /**
+     * Restarts the piece for a new game, clearing its history and recording its initial position again, as done by
+     * the constructor.
+     * @param startPos initial position of the piece, to be added to the move history
+     */
+    public void restart(Position startPos) {
+        moveHistory.clear();
+        moveHistory.add(startPos);
+        totalMoveDist = 0;
     }
 
     public int getId() {
@@ -1,5 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * IMPORTANT:
@@ -8,6 +10,7 @@ import java.awt.*;
 public class GUI_for_chess_like_games extends JFrame {
     private static final int BUTTON_SIZE = 55;
     private static final int FONT_SIZE = 20;
+    private static final Color ATTACKER_COLOR = new Color(165, 42, 42);
     private final JButton[][] buttons;
     private final int BOARD_SIZE;
     private JButton selectedButton = null; // To keep track of the currently selected button
@@ -17,6 +20,59 @@ public class GUI_for_chess_like_games extends JFrame {
     private final JLabel playerTowWinsLabel = new JLabel("♟ Player 2 Wins: 0");
     private final JLabel playerOneWinsLabel = new JLabel("♙ Player 1 Wins: 0");
     private final JPanel mainPanel = new JPanel(new BorderLayout());
+    private final BitBoard changedSquares = new BitBoard(); // squares to redraw, drained from a GameLogic
+    private static final String[] OPPONENTS = { "Two players", "Computer plays 1", "Computer plays 2" };
+    private static final int COMPUTER_TABLE_MB = 64;
+    private final JComboBox<String> opponentBox = new JComboBox<>(OPPONENTS);
+    private final JSpinner thinkSpinner = new JSpinner(new SpinnerNumberModel(1.0, 0.1, 60.0, 0.5));
+    private ParallelSearch computerSearch = null;   // created on first use, searches on all cores
+    private ComputerMove computerMove = null;       // the search for the computer's next move, if one is running
+
+    /**
+     * This class searches for the computer's move off the event dispatch thread, on a copy of the game, and plays the
+     * move through the game logic on the event dispatch thread unless the search was cancelled first.
+     */
+    private final class ComputerMove extends SwingWorker<SearchResult, Void> {
+        private final GameLogic position;
+        private final long thinkMillis;
+        private final AtomicBoolean stopSignal = new AtomicBoolean(false);
+
+        private ComputerMove(GameLogic game, long thinkMillis) {
+            position = game.copyForSearch();
+            this.thinkMillis = thinkMillis;
+        }
+
+        @Override
+        protected SearchResult doInBackground() {
+            return computerSearch.search(position, SearchEngine.MAX_DEPTH, thinkMillis, stopSignal);
+        }
+
+        @Override
+        protected void done() {
+            if (computerMove != this) return;   // cancelled by an undo, a reset or a change of opponent
+            computerMove = null;
+            int move;
+            try {
+                move = get().bestMove();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopComputerOpponent("The computer's search was interrupted.");
+                return;
+            } catch (ExecutionException e) {
+                stopComputerOpponent("The computer's search failed: " + e.getCause());
+                return;
+            }
+            if (move == Move.NONE) {    // the search was stopped before completing an iteration, or there are no moves
+                int[] moves = new int[GameLogic.MAX_MOVES];
+                if (position.generateMoves(position.getCurrentPlayer(), moves) == 0) {
+                    stopComputerOpponent("The computer has no legal move.");
+                    return;
+                }
+                move = moves[0];
+            }
+            playMove(Position.of(Move.from(move)), Position.of(Move.to(move)));
+        }
+    }
 
     /**
      * Initializes the graphical user interface for the Vikings Chess Game.
@@ -36,8 +92,7 @@ public class GUI_for_chess_like_games extends JFrame {
         // An action listener to the back button
         backButton.addActionListener(e -> {
             // implementation of the "Back Button"
-            gameLogic.undoLastMove();
-            updateBoard();
+            undoMove();
         });
         // Create left and right sub-panels for the win count labels
         JPanel leftLabelPanel = new JPanel();
@@ -60,6 +115,16 @@ public class GUI_for_chess_like_games extends JFrame {
         resetButton.addActionListener(e -> {
             resetGame();
         });
+        // The computer opponent and its think time in seconds, only available for a GameLogic
+        topPanel.add(opponentBox);
+        topPanel.add(new JLabel("Think (s):"));
+        topPanel.add(thinkSpinner);
+        opponentBox.setEnabled(gameLogic instanceof GameLogic);
+        opponentBox.addActionListener(e -> {
+            cancelComputerMove();
+            updateBoard();
+            startComputerMoveIfDue();
+        });
 
     }
 
@@ -69,24 +134,93 @@ public class GUI_for_chess_like_games extends JFrame {
      * @param destPosition The destination piece position
      */
     private void twoButtonsListener(Position srcPosition, Position destPosition) {
+        if (isComputerTurn()) return;   // the pieces can't be moved while the computer is thinking
+        playMove(srcPosition, destPosition);
+    }
+
+    /**
+     * Performs a move of the current player, and lets the computer move next if it plays the other player.
+     * @param srcPosition The source piece position
+     * @param destPosition The destination piece position
+     */
+    private void playMove(Position srcPosition, Position destPosition) {
         if (gameLogic.move(srcPosition, destPosition)) {
             updateBoard();
 
             // Check For victory
             if (gameLogic.isGameFinished()) {
                 resetGame();
+            } else {
+                startComputerMoveIfDue();
             }
         }
     }
 
+    /**
+     * Undoes the last move. Against the computer, the computer's reply is undone along with the player's move.
+     */
+    private void undoMove() {
+        cancelComputerMove();
+        gameLogic.undoLastMove();
+        if (isComputerTurn() && gameLogic instanceof GameLogic logic && logic.getHistoryLength() > 0) {
+            gameLogic.undoLastMove();
+        }
+        updateBoard();
+        startComputerMoveIfDue();
+    }
+
+    /**
+     * Checks whether the computer plays the current player.
+     * @return true if it's the computer's turn
+     */
+    private boolean isComputerTurn() {
+        int computer = opponentBox.getSelectedIndex();    // the number of the computer's player, or 0
+        return computer != 0 && gameLogic instanceof GameLogic && (computer == 2) == gameLogic.isSecondPlayerTurn();
+    }
+
+    /**
+     * Starts searching for the computer's move if it's the computer's turn. The board stays responsive during the
+     * search, and the move is played when the think time is over.
+     */
+    private void startComputerMoveIfDue() {
+        if (computerMove != null || !isComputerTurn() || gameLogic.isGameFinished()) return;
+        if (computerSearch == null) {
+            computerSearch = new ParallelSearch(Runtime.getRuntime().availableProcessors(), COMPUTER_TABLE_MB);
+        }
+        long thinkMillis = Math.round(((Number) thinkSpinner.getValue()).doubleValue() * 1000);
+        computerMove = new ComputerMove((GameLogic) gameLogic, thinkMillis);
+        computerMove.execute();
+        turnLabel.setText(turnLabel.getText() + " (computer thinking)");
+    }
+
+    /**
+     * Tells the user the computer can't move, and hands its pieces back to the user so the game can go on.
+     * @param message the reason the computer can't move
+     */
+    private void stopComputerOpponent(String message) {
+        JOptionPane.showMessageDialog(this, message, "Computer opponent", JOptionPane.WARNING_MESSAGE);
+        opponentBox.setSelectedIndex(0);    // the listener of the box updates the board
+    }
+
+    /**
+     * Stops the search for the computer's move, if one is running, so its result is never played.
+     */
+    private void cancelComputerMove() {
+        if (computerMove == null) return;
+        computerMove.stopSignal.set(true);
+        computerMove = null;
+    }
+
 
     /**
      * Updates the game board UI to reflect the current state of the game.
      * It updates the turn label, the button text, and the text color based on the current game state.
      *
      * If it's the attacker's turn, the turn label will display "Attacker's Turn", otherwise "Defender's Turn".
-     * For each cell on the board, the button's appearance and text will be updated to match the corresponding
+     * For each changed cell on the board, the button's appearance and text will be updated to match the corresponding
      * piece's position and type. The text color is determined by the piece's owner.
+     * <br>If the logic is a {@link GameLogic}, only the cells it reports as changed are updated (see
+     * {@link GameLogic#drainChangedSquares}), otherwise all of them are.
      *
      * @see #updateWinsLabels(int, int)
      */
@@ -98,25 +232,37 @@ public class GUI_for_chess_like_games extends JFrame {
             turnLabel.setText("Player 1's Turn");
         }
 
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                Piece piece = gameLogic.getPieceAtPosition(new Position(row, col));
-                if (piece != null) {
-                    // Update the button's appearance based on the new piece position
-                    String type = piece.getType();
-                    buttons[row][col].setText(type);
-                    if ((piece.getOwner().isPlayerOne())) {
-                        buttons[row][col].setForeground(Color.BLUE);
-                    } else {
-                        buttons[row][col].setForeground(new Color(165, 42, 42));
-                    }
-                } else {
-                    buttons[row][col].setText("");
+        if (gameLogic instanceof GameLogic logic) {
+            logic.drainChangedSquares(changedSquares);
+            for (int s = changedSquares.first(); s < BitBoard.NUM_SQUARES; s = changedSquares.first()) {
+                changedSquares.clear(s);
+                updateSquare(s % BOARD_SIZE, s / BOARD_SIZE);   // see BitBoard.square
+            }
+        } else {
+            for (int row = 0; row < BOARD_SIZE; row++) {
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    updateSquare(row, col);
                 }
             }
         }
         updateWinsLabels(gameLogic.getSecondPlayer().getWins(), gameLogic.getFirstPlayer().getWins());
     }
+
+    /**
+     * Updates the button of a cell to show the piece on it, if any.
+     * @param row the row of the cell, the x coordinate of its position
+     * @param col the column of the cell, the y coordinate of its position
+     */
+    private void updateSquare(int row, int col) {
+        Piece piece = gameLogic.getPieceAtPosition(Position.of(row, col));
+        if (piece != null) {
+            // Update the button's appearance based on the new piece position
+            buttons[row][col].setText(piece.getType());
+            buttons[row][col].setForeground(piece.getOwner().isPlayerOne() ? Color.BLUE : ATTACKER_COLOR);
+        } else {
+            buttons[row][col].setText("");
+        }
+    }
     private void updateWinsLabels(int attackerWins, int defenderWins) {
         playerTowWinsLabel.setText("♟ Player 2 Wins: " + attackerWins);
         playerOneWinsLabel.setText("♙ Player 1 Wins: " + defenderWins);
@@ -150,17 +296,8 @@ public class GUI_for_chess_like_games extends JFrame {
                 // Clear default border and content area
                 buttons[row][col].setBorderPainted(false);
 
-                if (gameLogic.getPieceAtPosition(new Position(row, col)) != null) {
-                    // Set the button's appearance based on the piece type
-                    Piece piece = gameLogic.getPieceAtPosition(new Position(row, col));
-                    String type = piece.getType();
-                    buttons[row][col].setText(type);
-                    if ((piece.getOwner().isPlayerOne())) {
-                        buttons[row][col].setForeground(Color.BLUE);
-                    } else {
-                        buttons[row][col].setForeground(new Color(165, 42, 42));
-                    }
-                }
+                // Set the button's appearance based on the piece type
+                updateSquare(row, col);
 
                 mainPanel.add(buttons[row][col]);
                 buttons[row][col].putClientProperty("row", row); // Store the row index
@@ -172,7 +309,7 @@ public class GUI_for_chess_like_games extends JFrame {
                         // No button was selected before, so highlight the clicked button
                         int rowIndexOld = (int) clickedButton.getClientProperty("row");
                         int colIndexOld = (int) clickedButton.getClientProperty("col");
-                        Position p = new Position(rowIndexOld, colIndexOld);
+                        Position p = Position.of(rowIndexOld, colIndexOld);
                         if (gameLogic.getPieceAtPosition(p) != null) {
                             selectedButton = clickedButton;
                             selectedColor = selectedButton.getBackground();
@@ -187,13 +324,13 @@ public class GUI_for_chess_like_games extends JFrame {
                         selectedButton.setBackground(selectedColor);
                         int rowIndexOld = (int) selectedButton.getClientProperty("row");
                         int colIndexOld = (int) selectedButton.getClientProperty("col");
-                        Position oldPosition = new Position(rowIndexOld, colIndexOld);
+                        Position oldPosition = Position.of(rowIndexOld, colIndexOld);
 
                         selectedButton = null;
 
                         int rowIndex = (int) clickedButton.getClientProperty("row");
                         int colIndex = (int) clickedButton.getClientProperty("col");
-                        Position newPosition = new Position(rowIndex, colIndex);
+                        Position newPosition = Position.of(rowIndex, colIndex);
 
                         twoButtonsListener(oldPosition, newPosition);
                     }
@@ -201,6 +338,9 @@ public class GUI_for_chess_like_games extends JFrame {
             }
         }
 
+        // All the cells are drawn, so only later changes need to be redrawn
+        if (gameLogic instanceof GameLogic logic) logic.drainChangedSquares(changedSquares);
+
         // Add the main panel to the frame
         getContentPane().add(mainPanel);
 
@@ -209,6 +349,7 @@ public class GUI_for_chess_like_games extends JFrame {
         setVisible(true);
     }
     private void resetGame() {
+        cancelComputerMove();
         gameLogic.reset();
 
         // Reset UI elements
@@ -220,5 +361,6 @@ public class GUI_for_chess_like_games extends JFrame {
             selectedButton.setBackground(selectedColor);
             selectedButton = null;
         }
+        startComputerMoveIfDue();
     }
 }
@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class reads game archives, a compact binary format of game records, by memory-mapping them.
+ * <p>The format is little-endian and consists of:
+ * <br>A header of {@value #HEADER_BYTES} bytes: the magic number "VKGA", the format version (int), the number of games
+ * (long) and the offset of the index (long).
+ * <br>The games, each a header of the number of moves (int) and the winner (byte, one of {@link #NO_WINNER},
+ * {@link #DEFENDER_WINS}, {@link #ATTACKER_WINS}), followed by two bytes per move: the source and destination squares
+ * (see {@link BitBoard#square}).
+ * <br>The index, holding the file offset of each game (long).</p>
+ * <p>Games are read in place from the mapped file, without copying or parsing. Archives are written by
+ * {@link GameArchiveWriter}. The reader is thread-safe.</p>
+ */
+public class GameArchive implements AutoCloseable, Iterable<GameArchive.GameRecord> {
+    /**
+     * Winner codes of a game record.
+     */
+    public static final int NO_WINNER = 0, DEFENDER_WINS = 1, ATTACKER_WINS = 2;
+
+    static final int MAGIC = 'V' | 'K' << 8 | 'G' << 16 | 'A' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int GAME_HEADER_BYTES = 5;
+    private static final long MAX_CHUNK_BYTES = 1L << 30;   // mappings are int-indexed, so games are mapped in chunks
+
+    /**
+     * This class is a view of a game record in the mapped archive.
+     */
+    public static final class GameRecord {
+        private final MappedByteBuffer chunk;
+        private final int offset;
+
+        private GameRecord(MappedByteBuffer chunk, int offset) {
+            this.chunk = chunk;
+            this.offset = offset;
+        }
+
+        /**
+         * Returns the number of moves of the game.
+         * @return the number of moves
+         */
+        public int moveCount() {
+            return chunk.getInt(offset);
+        }
+
+        /**
+         * Returns the winner of the game.
+         * @return one of {@link #NO_WINNER}, {@link #DEFENDER_WINS}, {@link #ATTACKER_WINS}
+         */
+        public int winner() {
+            return chunk.get(offset + 4);
+        }
+
+        /**
+         * Returns a move of the game.
+         * @param i the index of the move, 0 being the first move of the game
+         * @return the move, in the encoding of {@link Move}
+         * @throws IndexOutOfBoundsException if {@code i} is not less than {@link #moveCount()}
+         */
+        public int move(int i) {
+            int at = offset + GAME_HEADER_BYTES + 2 * Objects.checkIndex(i, moveCount());
+            return Move.of(chunk.get(at), chunk.get(at + 1));
+        }
+
+        /**
+         * Performs the moves of the game on a game logic, stopping at the first illegal move.
+         * @param game the game to perform the moves on, normally in its initial state
+         * @return true if all the moves were legal
+         */
+        public boolean replay(GameLogic game) {
+            for (int i = 0, n = moveCount(); i < n; ++i) {
+                int move = move(i);
+                if (!game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move)))) return false;
+            }
+            return true;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long games;
+    private final LongBuffer index;
+    private final MappedByteBuffer[] chunks;
+    private final long[] chunkStarts;       // file offset of each chunk
+    private final long[] chunkFirstGames;   // index of the first game of each chunk
+
+    /**
+     * Opens an archive for reading.
+     * @param path the path of the archive
+     * @throws IOException if the file can't be read or is not a valid archive
+     */
+    public GameArchive(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Not a game archive: " + path);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a game archive: " + path);
+            if (header.getInt(4) != VERSION) throw new IOException("Unsupported archive version: " + header.getInt(4));
+            games = header.getLong(8);
+            long indexOffset = header.getLong(16);
+            if (games < 0 || indexOffset < HEADER_BYTES || indexOffset + games * Long.BYTES != channel.size())
+                throw new IOException("Corrupt game archive: " + path);
+            if (games * Long.BYTES > Integer.MAX_VALUE) throw new IOException("Archive index is too large: " + path);
+            index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, games * Long.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+
+            // split the games into chunks of whole games
+            List<Long> starts = new ArrayList<>();
+            List<Long> firstGames = new ArrayList<>();
+            List<MappedByteBuffer> mapped = new ArrayList<>();
+            long start = HEADER_BYTES;
+            long firstGame = 0;
+            for (long g = 0; g <= games; ++g) {
+                long end = g + 1 < games ? index.get((int) g + 1) : indexOffset;   // end of game g
+                if (g == games || end - start > MAX_CHUNK_BYTES) {
+                    // close the chunk before game g, which starts the next chunk
+                    long chunkEnd = g == games ? indexOffset : index.get((int) g);
+                    starts.add(start);
+                    firstGames.add(firstGame);
+                    mapped.add((MappedByteBuffer) channel.map(FileChannel.MapMode.READ_ONLY, start, chunkEnd - start)
+                            .order(ByteOrder.LITTLE_ENDIAN));
+                    start = chunkEnd;
+                    firstGame = g;
+                }
+            }
+            chunks = mapped.toArray(new MappedByteBuffer[0]);
+            chunkStarts = starts.stream().mapToLong(Long::longValue).toArray();
+            chunkFirstGames = firstGames.stream().mapToLong(Long::longValue).toArray();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of games in the archive.
+     * @return the number of games
+     */
+    public long size() {
+        return games;
+    }
+
+    /**
+     * Returns a game of the archive.
+     * @param i the index of the game, in the order the games were written
+     * @return a view of the game record
+     * @throws IndexOutOfBoundsException if {@code i} is not less than {@link #size()}
+     */
+    public GameRecord game(long i) {
+        if (i < 0 || i >= games) throw new IndexOutOfBoundsException("Game " + i + " out of " + games);
+        int c = Arrays.binarySearch(chunkFirstGames, i);
+        if (c < 0) c = -c - 2;      // the last chunk starting before the game
+        return new GameRecord(chunks[c], (int) (index.get((int) i) - chunkStarts[c]));
+    }
+
+    /**
+     * Returns an iterator over the games of the archive, in the order they were written.
+     * @return an iterator of game record views
+     */
+    @Override
+    public Iterator<GameRecord> iterator() {
+        return new Iterator<>() {
+            private long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < games;
+            }
+
+            @Override
+            public GameRecord next() {
+                if (next >= games) throw new NoSuchElementException();
+                return game(next++);
+            }
+        };
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once no views of it are reachable.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Converts text move lists to an archive, or scans an archive and prints its statistics.
+     * <br>Usage: {@code GameArchive convert [archive] [text files...]} or {@code GameArchive scan [archive]}
+     * <br>Text files hold the moves of a game as pairs of "(x, y)" positions, as in the inputs of {@code GameLogicTest}.
+     * Converted games are replayed to check them and to find their winners.
+     * @param args the command and its arguments
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("convert")) {
+            try (GameArchiveWriter writer = new GameArchiveWriter(Path.of(args[1]))) {
+                for (int f = 2; f < args.length; ++f) {
+                    GameLogic game = new GameLogic();
+                    game.setLoggingEnabled(false);
+                    for (int move : Move.parseList(Files.readString(Path.of(args[f])))) {
+                        if (!game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move))))
+                            throw new IOException("Illegal move in " + args[f]);
+                    }
+                    writer.append(game);
+                }
+                System.out.println(writer.size() + " game(s) written");
+            }
+        } else if (args.length == 2 && args[0].equals("scan")) {
+            long start = System.nanoTime();
+            long moves = 0;
+            long[] winners = new long[3];
+            try (GameArchive archive = new GameArchive(Path.of(args[1]))) {
+                for (GameRecord record : archive) {
+                    moves += record.moveCount();
+                    winners[record.winner()]++;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d games, %d moves, %d attacker wins, %d defender wins, %.3fs (%.0f games/s)%n",
+                        archive.size(), moves, winners[ATTACKER_WINS], winners[DEFENDER_WINS], seconds,
+                        archive.size() / seconds);
+            }
+        } else {
+            System.err.println("Usage: GameArchive convert [archive] [text files...] | GameArchive scan [archive]");
+        }
+    }
+}
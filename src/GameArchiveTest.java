@@ -0,0 +1,147 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameArchiveTest {
+    private static final int RANDOM_GAMES = 300;    // enough moves to fill the writer's buffer several times
+
+    @TempDir
+    Path dir;
+
+    private final List<int[]> games = new ArrayList<>();
+    private final List<Integer> winners = new ArrayList<>();
+
+    @BeforeEach
+    void playGames() throws IOException {
+        File[] inputs = new File("src/test/resources/inputs").listFiles(File::isFile);
+        assertNotNull(inputs, "No input files found");
+        for (File input : inputs) {
+            GameLogic game = newGame();
+            for (int move : Move.parseList(Files.readString(input.toPath())))
+                assertTrue(game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move))));
+            record(game);
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        for (int g = 0; g < RANDOM_GAMES; ++g) {
+            GameLogic game = newGame();
+            int plies = random.nextInt(400);    // some games end early, without a winner
+            for (int i = 0; i < plies && !game.isGameFinished(); ++i) {
+                int n = game.generateMoves(game.getCurrentPlayer(), moves);
+                if (n == 0) break;
+                int move = moves[random.nextInt(n)];
+                game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move)));
+            }
+            record(game);
+        }
+    }
+
+    private static GameLogic newGame() {
+        GameLogic game = new GameLogic();
+        game.setLoggingEnabled(false);
+        return game;
+    }
+
+    private void record(GameLogic game) {
+        int[] moves = new int[game.getHistoryLength()];
+        for (int i = 0; i < moves.length; ++i) moves[i] = game.getHistoryMove(i);
+        games.add(moves);
+        Player winner = game.getWinner();
+        winners.add(winner == null ? GameArchive.NO_WINNER
+                : winner.isPlayerOne() ? GameArchive.DEFENDER_WINS : GameArchive.ATTACKER_WINS);
+    }
+
+    private Path writeArchive() throws IOException {
+        Path path = dir.resolve("games.vkga");
+        try (GameArchiveWriter writer = new GameArchiveWriter(path)) {
+            for (int g = 0; g < games.size(); ++g) {
+                int[] moves = games.get(g);
+                GameLogic game = newGame();
+                for (int move : moves) game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move)));
+                // alternate between the two ways of appending a game
+                if (g % 2 == 0) writer.append(game);
+                else writer.append(Arrays.copyOf(moves, moves.length + 3), moves.length, game.getWinner());
+            }
+            assertEquals(games.size(), writer.size());
+        }
+        return path;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        try (GameArchive archive = new GameArchive(writeArchive())) {
+            assertEquals(games.size(), archive.size());
+            for (int g = 0; g < games.size(); ++g) {
+                GameArchive.GameRecord record = archive.game(g);
+                int[] moves = games.get(g);
+                assertEquals(moves.length, record.moveCount());
+                assertEquals(winners.get(g), record.winner());
+                for (int i = 0; i < moves.length; ++i) assertEquals(moves[i], record.move(i), "game " + g + " move " + i);
+                assertThrows(IndexOutOfBoundsException.class, () -> record.move(moves.length));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> archive.game(games.size()));
+        }
+    }
+
+    @Test
+    void testIterationAndReplay() throws IOException {
+        try (GameArchive archive = new GameArchive(writeArchive())) {
+            int g = 0;
+            for (GameArchive.GameRecord record : archive) {
+                assertEquals(games.get(g).length, record.moveCount());
+                GameLogic game = newGame();
+                assertTrue(record.replay(game));
+                assertEquals(games.get(g).length, game.getHistoryLength());
+                g++;
+            }
+            assertEquals(games.size(), g);
+        }
+    }
+
+    @Test
+    void testEmptyArchive() throws IOException {
+        Path path = dir.resolve("empty.vkga");
+        new GameArchiveWriter(path).close();
+        try (GameArchive archive = new GameArchive(path)) {
+            assertEquals(0, archive.size());
+            assertFalse(archive.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void testTruncatedArchiveIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(writeArchive());
+        for (int length : new int[] { 0, GameArchive.HEADER_BYTES - 1, GameArchive.HEADER_BYTES, bytes.length - 1 }) {
+            Path truncated = dir.resolve("truncated" + length + ".vkga");
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> new GameArchive(truncated).close(), "length " + length);
+        }
+    }
+
+    @Test
+    void testBadHeaderIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(writeArchive());
+        byte[] badMagic = bytes.clone();
+        badMagic[0] = 'X';
+        Path path = dir.resolve("magic.vkga");
+        Files.write(path, badMagic);
+        assertThrows(IOException.class, () -> new GameArchive(path).close());
+
+        byte[] badVersion = bytes.clone();
+        badVersion[4] = (byte) (GameArchive.VERSION + 1);
+        Path versionPath = dir.resolve("version.vkga");
+        Files.write(versionPath, badVersion);
+        assertThrows(IOException.class, () -> new GameArchive(versionPath).close());
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class writes game archives in the binary format read by {@link GameArchive}, streaming the games to the file as
+ * they are appended.
+ * <p>The index of game offsets is kept in memory and written at the end of the file when the writer is closed, so an
+ * archive that was not closed is not readable.</p>
+ */
+public class GameArchiveWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = GameArchive.HEADER_BYTES;  // file offset of the next game
+    private long[] offsets = new long[1024];
+    private int games = 0;
+    private final int[] moves = new int[1];     // single-move buffer for moves read one at a time
+
+    /**
+     * Creates an archive, replacing the file if it exists.
+     * @param path the path of the archive
+     * @throws IOException if the file can't be created
+     */
+    public GameArchiveWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(GameArchive.HEADER_BYTES);  // the header is written on close, once the index is known
+    }
+
+    /**
+     * Appends the history of a game (see {@link GameLogic#getHistoryMove}) and its current winner to the archive.
+     * @param game the game to append
+     * @throws IOException if the archive can't be written
+     */
+    public void append(GameLogic game) throws IOException {
+        int n = game.getHistoryLength();
+        startGame(n, winnerCode(game.getWinner()));
+        for (int i = 0; i < n; ++i) {
+            moves[0] = game.getHistoryMove(i);
+            putMoves(moves, 1);
+        }
+    }
+
+    /**
+     * Appends a game to the archive.
+     * @param gameMoves the moves of the game, in the encoding of {@link Move}
+     * @param count the number of moves of the game, at the start of {@code gameMoves}
+     * @param winner the winner of the game, or {@code null} if it ended without one
+     * @throws IOException if the archive can't be written
+     */
+    public void append(int[] gameMoves, int count, Player winner) throws IOException {
+        startGame(count, winnerCode(winner));
+        putMoves(gameMoves, count);
+    }
+
+    /**
+     * Returns the number of games appended so far.
+     * @return the number of games in the archive
+     */
+    public int size() {
+        return games;
+    }
+
+    private static int winnerCode(Player winner) {
+        if (winner == null) return GameArchive.NO_WINNER;
+        return winner.isPlayerOne() ? GameArchive.DEFENDER_WINS : GameArchive.ATTACKER_WINS;
+    }
+
+    private void startGame(int count, int winner) throws IOException {
+        if (games == offsets.length) offsets = Arrays.copyOf(offsets, games * 2);
+        offsets[games++] = position;
+        ensure(GameArchive.GAME_HEADER_BYTES);
+        buffer.putInt(count).put((byte) winner);
+        position += GameArchive.GAME_HEADER_BYTES + 2L * count;
+    }
+
+    private void putMoves(int[] gameMoves, int count) throws IOException {
+        for (int i = 0; i < count; ++i) {
+            ensure(2);
+            buffer.put((byte) Move.from(gameMoves[i])).put((byte) Move.to(gameMoves[i]));
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes the index and the header and closes the file.
+     * @throws IOException if the archive can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            for (int i = 0; i < games; ++i) {
+                ensure(Long.BYTES);
+                buffer.putLong(offsets[i]);
+            }
+            drain();
+            ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION).putLong(games).putLong(position).flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+        }
+    }
+}
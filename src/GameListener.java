@@ -0,0 +1,48 @@
+/**
+ * The GameListener interface defines the events a {@link GameLogic} emits to its registered listeners (see
+ * {@link GameLogic#addListener}), so that views, loggers and metrics can react to changes instead of scanning the
+ * board. All the methods do nothing by default, so a listener only implements the events it handles.
+ * <p>Events are delivered synchronously on the thread that changes the game, after the change is complete, in the order
+ * of the changes. A listener must not change the game while an event is delivered; to react by changing it, or to
+ * handle events on another thread, wrap the listener in an {@link AsyncGameListener}.</p>
+ * <p>Squares are given as in {@link BitBoard#square} and moves in the encoding of {@link Move}. Only moves performed by
+ * {@link GameLogic#move} and undone by {@link GameLogic#undoLastMove} emit events, search moves don't.</p>
+ */
+public interface GameListener {
+    /**
+     * Called when a piece has moved.
+     * @param move the move, from the square of the piece to its new square
+     */
+    default void pieceMoved(int move) { }
+
+    /**
+     * Called when a piece has been captured by the last move, once for each captured piece after
+     * {@link #pieceMoved}.
+     * @param square the square of the captured piece, which is now empty
+     */
+    default void pieceCaptured(int square) { }
+
+    /**
+     * Called when a move has been undone, with the piece back on its source square.
+     * @param move the move that was undone
+     */
+    default void moveUndone(int move) { }
+
+    /**
+     * Called when a piece captured by an undone move has been placed back, once for each piece after
+     * {@link #moveUndone}.
+     * @param square the square of the piece
+     */
+    default void captureUndone(int square) { }
+
+    /**
+     * Called when a player has won the game, after the events of the winning move.
+     * @param winner the winning player
+     */
+    default void gameWon(Player winner) { }
+
+    /**
+     * Called when the game has been reset to its initial state.
+     */
+    default void gameReset() { }
+}
@@ -0,0 +1,259 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameListenerTest {
+    /**
+     * Rebuilds the board of a game from its events alone, checking the order of the events on the way.
+     */
+    private static final class BoardMirror implements GameListener {
+        private final GameLogic game;
+        private final Piece[] initial = new Piece[BitBoard.NUM_SQUARES];
+        private final Piece[] board = new Piece[BitBoard.NUM_SQUARES];
+        private final Deque<List<Integer>> captures = new ArrayDeque<>();  // squares captured by each move, newest first
+        private List<Integer> undone = Collections.emptyList();     // captures of the last undone move, not yet restored
+        private final Deque<List<Piece>> capturedPieces = new ArrayDeque<>();
+        private List<Piece> restoring = Collections.emptyList();
+        private String lastEvent = "";
+        private int wins = 0;
+
+        private BoardMirror(GameLogic game) {
+            this.game = game;
+            for (int s = 0; s < board.length; ++s) initial[s] = game.getPieceAtPosition(Position.of(s));
+            System.arraycopy(initial, 0, board, 0, board.length);
+        }
+
+        @Override
+        public void pieceMoved(int move) {
+            assertTrue(undone.isEmpty(), "captures of the undone move were not all restored");
+            assertNotNull(board[Move.from(move)]);
+            assertNull(board[Move.to(move)]);
+            board[Move.to(move)] = board[Move.from(move)];
+            board[Move.from(move)] = null;
+            captures.push(new ArrayList<>());
+            capturedPieces.push(new ArrayList<>());
+            lastEvent = "pieceMoved";
+        }
+
+        @Override
+        public void pieceCaptured(int square) {
+            assertTrue(lastEvent.equals("pieceMoved") || lastEvent.equals("pieceCaptured"));
+            assertFalse(captures.peek().contains(square), "piece captured twice");
+            assertNotNull(board[square]);
+            captures.peek().add(square);
+            capturedPieces.peek().add(board[square]);
+            board[square] = null;
+            lastEvent = "pieceCaptured";
+        }
+
+        @Override
+        public void moveUndone(int move) {
+            assertTrue(undone.isEmpty(), "captures of the undone move were not all restored");
+            assertNull(board[Move.from(move)]);
+            board[Move.from(move)] = board[Move.to(move)];
+            board[Move.to(move)] = null;
+            undone = new ArrayList<>(captures.pop());
+            restoring = new ArrayList<>(capturedPieces.pop());
+            lastEvent = "moveUndone";
+        }
+
+        @Override
+        public void captureUndone(int square) {
+            assertTrue(lastEvent.equals("moveUndone") || lastEvent.equals("captureUndone"));
+            assertFalse(undone.isEmpty(), "more captures restored than were made");
+            assertEquals(undone.remove(0), square);
+            assertNull(board[square]);
+            board[square] = restoring.remove(0);
+            lastEvent = "captureUndone";
+        }
+
+        @Override
+        public void gameWon(Player winner) {
+            assertTrue(lastEvent.equals("pieceMoved") || lastEvent.equals("pieceCaptured"),
+                    "gameWon must follow the events of the winning move");
+            assertSame(game.getWinner(), winner);
+            wins++;
+            lastEvent = "gameWon";
+        }
+
+        @Override
+        public void gameReset() {
+            System.arraycopy(initial, 0, board, 0, board.length);
+            captures.clear();
+            capturedPieces.clear();
+            undone = Collections.emptyList();
+            lastEvent = "gameReset";
+        }
+
+        private void assertMatches() {
+            assertTrue(undone.isEmpty(), "captures of the undone move were not all restored");
+            for (int s = 0; s < board.length; ++s)
+                assertSame(game.getPieceAtPosition(Position.of(s)), board[s], "square " + s);
+        }
+    }
+
+    /**
+     * Records the events it receives as strings, and checks that they are never delivered concurrently.
+     */
+    private static final class Recorder implements GameListener {
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger delivering = new AtomicInteger();
+        private volatile boolean overlapped = false;
+
+        private void record(String event) {
+            if (delivering.incrementAndGet() != 1) overlapped = true;
+            events.add(event);
+            delivering.decrementAndGet();
+        }
+
+        @Override
+        public void pieceMoved(int move) {
+            record("moved " + move);
+        }
+
+        @Override
+        public void pieceCaptured(int square) {
+            record("captured " + square);
+        }
+
+        @Override
+        public void moveUndone(int move) {
+            record("undone " + move);
+        }
+
+        @Override
+        public void captureUndone(int square) {
+            record("restored " + square);
+        }
+
+        @Override
+        public void gameWon(Player winner) {
+            record("won " + winner.isPlayerOne());
+        }
+
+        @Override
+        public void gameReset() {
+            record("reset");
+        }
+    }
+
+    static Stream<File> fixtures() {
+        File[] inputs = new File("src/test/resources/inputs").listFiles(File::isFile);
+        assertNotNull(inputs, "No input files found");
+        return Stream.of(inputs);
+    }
+
+    private static GameLogic newGame() {
+        GameLogic game = new GameLogic();
+        game.setLoggingEnabled(false);
+        return game;
+    }
+
+    private static void move(GameLogic game, int move) {
+        assertTrue(game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("fixtures")
+    void testFixtureReplay(File input) throws IOException {
+        GameLogic game = newGame();
+        BoardMirror mirror = new BoardMirror(game);
+        game.addListener(mirror);
+        int[] moves = Move.parseList(Files.readString(input.toPath()));
+        for (int move : moves) {
+            move(game, move);
+            mirror.assertMatches();
+        }
+        assertEquals(game.getWinner() != null ? 1 : 0, mirror.wins);
+        for (int i = 0; i < moves.length; ++i) {
+            game.undoLastMove();
+            mirror.assertMatches();
+        }
+        game.reset();
+        mirror.assertMatches();
+        assertEquals("gameReset", mirror.lastEvent);
+    }
+
+    @Test
+    void testRandomGames() {
+        GameLogic game = newGame();
+        BoardMirror mirror = new BoardMirror(game);
+        game.addListener(mirror);
+        SplittableRandom random = new SplittableRandom(5);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        int wins = 0;
+        for (int i = 0; i < 20_000; ++i) {
+            int n = game.isGameFinished() ? 0 : game.generateMoves(game.getCurrentPlayer(), moves);
+            if (n == 0 || game.getHistoryLength() > 200) {
+                game.reset();
+            } else if (game.getHistoryLength() > 0 && random.nextInt(4) == 0) {
+                game.undoLastMove();
+            } else {
+                move(game, moves[random.nextInt(n)]);
+                if (game.getWinner() != null) wins++;
+            }
+            mirror.assertMatches();
+        }
+        assertEquals(wins, mirror.wins);
+    }
+
+    @Test
+    void testRemovedListenerReceivesNothing() {
+        GameLogic game = newGame();
+        Recorder removed = new Recorder();
+        Recorder kept = new Recorder();
+        game.addListener(removed);
+        game.addListener(kept);
+        assertTrue(game.removeListener(removed));
+        assertFalse(game.removeListener(removed));
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        game.generateMoves(game.getCurrentPlayer(), moves);
+        move(game, moves[0]);
+        game.undoLastMove();
+        game.reset();
+        assertTrue(removed.events.isEmpty());
+        assertEquals(List.of("moved " + moves[0], "undone " + moves[0], "reset"), kept.events);
+    }
+
+    @Test
+    void testAsyncDeliveryIsOrderedAndSerial() throws InterruptedException {
+        GameLogic game = newGame();
+        Recorder direct = new Recorder();
+        Recorder delivered = new Recorder();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            game.addListener(direct);
+            game.addListener(new AsyncGameListener(delivered, executor));
+            SplittableRandom random = new SplittableRandom(9);
+            int[] moves = new int[GameLogic.MAX_MOVES];
+            for (int i = 0; i < 20_000; ++i) {
+                int n = game.isGameFinished() ? 0 : game.generateMoves(game.getCurrentPlayer(), moves);
+                if (n == 0 || game.getHistoryLength() > 200) game.reset();
+                else if (game.getHistoryLength() > 0 && random.nextInt(4) == 0) game.undoLastMove();
+                else move(game, moves[random.nextInt(n)]);
+            }
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (delivered.events.size() < direct.events.size() && System.nanoTime() < deadline) Thread.sleep(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(direct.events, delivered.events);
+        assertFalse(delivered.overlapped, "events were delivered concurrently");
+    }
+}
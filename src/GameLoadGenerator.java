@@ -0,0 +1,272 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class generates load on a {@link GameServer} from many concurrent games, and reports the sustained rate of moves
+ * and the latency of the requests.
+ * <p>The games are spread over a number of connections, each served by a virtual thread. A connection takes turns
+ * among its games, sending a request for the next game whenever fewer than a window of requests are awaiting their
+ * responses: a random legal move, or a reset if the game is finished. The latency of a request is measured from when it
+ * is sent (flushed to the socket) to when its response is read, so it includes waiting behind at most the window of
+ * earlier requests, but not the client's own batching. Each game is mirrored by a local {@link GameLogic}, from which
+ * the moves are chosen and against which the final state of every game on the server is checked.</p>
+ */
+public final class GameLoadGenerator {
+    /**
+     * The default number of requests a connection has awaiting their responses.
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    private GameLoadGenerator() { }
+
+    /**
+     * This class represents a histogram of latencies, with buckets about 6% wide.
+     */
+    private static final class Histogram {
+        private static final int SUB_BUCKETS = 16;      // buckets per power of two
+        private final long[] counts = new long[SUB_BUCKETS * 64];
+        private long total = 0;
+        private long max = 0;
+
+        private static int bucket(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) nanos;
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);   // at least 4
+            int sub = (int) (nanos >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+            return SUB_BUCKETS * (exponent - 3) + sub;
+        }
+
+        // the highest latency in a bucket
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + 3;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exponent - 4)) - 1;
+        }
+
+        private void record(long nanos) {
+            counts[bucket(nanos)]++;
+            total++;
+            max = Math.max(max, nanos);
+        }
+
+        private void add(Histogram other) {
+            for (int i = 0; i < counts.length; ++i) counts[i] += other.counts[i];
+            total += other.total;
+            max = Math.max(max, other.max);
+        }
+
+        private long percentile(double p) {
+            long rank = (long) Math.ceil(total * p / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length; ++i) {
+                seen += counts[i];
+                if (seen >= Math.max(rank, 1)) return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+    }
+
+    /**
+     * This record holds the outcome of a load run.
+     * @param sessions the number of concurrent games
+     * @param connections the number of connections
+     * @param window the number of requests each connection had awaiting their responses
+     * @param requests the number of requests answered during the run
+     * @param moves the number of moves performed during the run
+     * @param nanos the duration of the run, in nanoseconds
+     * @param p50 the median latency of a request, in nanoseconds
+     * @param p99 the 99th percentile of the latency of a request, in nanoseconds
+     * @param max the highest latency of a request, in nanoseconds
+     * @param errors the number of unexpected responses, including games whose final state differed from their mirror
+     */
+    public record Report(int sessions, int connections, int window, long requests, long moves, long nanos, long p50,
+                         long p99, long max, long errors) {
+        @Override
+        public String toString() {
+            return String.format("%d sessions over %d connections, window %d: %d moves in %.2fs (%.0f moves/s, "
+                            + "%.0f requests/s)%nlatency p50 %.3fms, p99 %.3fms, max %.3fms, %d errors",
+                    sessions, connections, window, moves, nanos / 1e9, moves * 1e9 / nanos, requests * 1e9 / nanos,
+                    p50 / 1e6, p99 / 1e6, max / 1e6, errors);
+        }
+    }
+
+    /**
+     * This class holds the tallies of a connection.
+     */
+    private static final class Tally {
+        private final Histogram latencies = new Histogram();
+        private long requests = 0;
+        private long moves = 0;
+        private long errors = 0;
+    }
+
+    /**
+     * Runs games on a server until a deadline, then checks their states and ends them.
+     * @param port the port of the server on the loopback address
+     * @param sessions the number of games
+     * @param connections the number of connections the games are spread over
+     * @param window the number of requests each connection may have awaiting their responses, at most the number of
+     * its games
+     * @param nanos the duration of the run, in nanoseconds
+     * @return the report of the run
+     * @throws IOException if the server can't be reached
+     */
+    public static Report run(int port, int sessions, int connections, int window, long nanos) throws IOException {
+        if (sessions < connections || connections <= 0)
+            throw new IllegalArgumentException("Each connection must have at least one session");
+        if (window <= 0) throw new IllegalArgumentException("Window must be positive");
+        long deadline = System.nanoTime() + nanos;
+        List<Future<Tally>> tallies = new ArrayList<>(connections);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; ++c) {
+                int games = sessions / connections + (c < sessions % connections ? 1 : 0);
+                long seed = c;
+                tallies.add(executor.submit(() -> connection(port, games, Math.min(window, games), deadline, seed)));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Tally total = new Tally();
+        try {
+            for (Future<Tally> future : tallies) {
+                Tally tally = future.get();
+                total.latencies.add(tally.latencies);
+                total.requests += tally.requests;
+                total.moves += tally.moves;
+                total.errors += tally.errors;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating load", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException("Load connection failed", e.getCause());
+        }
+        return new Report(sessions, connections, window, total.requests, total.moves, elapsed, total.latencies.percentile(50),
+                total.latencies.percentile(99), total.latencies.max, total.errors);
+    }
+
+    /**
+     * Plays games over a single connection.
+     * <br>Since the games take turns and the window is no larger than the number of games, a game never has more than
+     * one request awaiting its response.
+     * @return the tallies of the connection
+     */
+    private static Tally connection(int port, int games, int window, long deadline, long seed) throws IOException {
+        Tally tally = new Tally();
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        long[] ids = new long[games];
+        GameLogic[] mirrors = new GameLogic[games];
+        // the requests awaiting their responses, in the order they were sent, as a ring of the window's size
+        long[] sent = new long[window];
+        boolean[] moved = new boolean[window];
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII), 1 << 16);
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII),
+                    1 << 16);
+            for (int g = 0; g < games; ++g) out.write("NEW\n");
+            out.flush();
+            for (int g = 0; g < games; ++g) {
+                String response = in.readLine();
+                if (response == null || !response.startsWith("OK ")) throw new IOException("Cannot create game: " + response);
+                ids[g] = Long.parseLong(response.substring(3));
+                mirrors[g] = new GameLogic();
+                mirrors[g].setLoggingEnabled(false);
+            }
+
+            int next = 0;           // the game of the next request
+            long sentCount = 0;     // requests sent, of which the last ones are awaiting their responses
+            long readCount = 0;
+            while (true) {
+                if (sentCount - readCount < window && System.nanoTime() - deadline < 0) {
+                    int g = next;
+                    next = (next + 1) % games;
+                    GameLogic mirror = mirrors[g];
+                    int n = mirror.isGameFinished() ? 0 : mirror.generateMoves(mirror.getCurrentPlayer(), moves);
+                    if (n == 0) {   // the game is finished, or the player to move is stuck
+                        out.write("RESET " + ids[g] + "\n");
+                        mirror.reset();
+                    } else {
+                        int move = moves[random.nextInt(n)];
+                        int from = Move.from(move), to = Move.to(move);
+                        out.write("MOVE " + ids[g] + " " + from % GameLogic.BOARD_SIZE + " "
+                                + from / GameLogic.BOARD_SIZE + " " + to % GameLogic.BOARD_SIZE + " "
+                                + to / GameLogic.BOARD_SIZE + "\n");
+                        mirror.move(mirror.getPosition(from), mirror.getPosition(to));
+                    }
+                    out.flush();
+                    int slot = (int) (sentCount++ % window);
+                    sent[slot] = System.nanoTime();
+                    moved[slot] = n > 0;
+                    continue;
+                }
+                if (readCount == sentCount) break;     // the deadline has passed and all the responses were read
+                String response = in.readLine();
+                if (response == null) throw new IOException("Server closed the connection");
+                int slot = (int) (readCount++ % window);
+                tally.latencies.record(System.nanoTime() - sent[slot]);
+                tally.requests++;
+                if (!response.startsWith("OK")) tally.errors++;
+                else if (moved[slot]) tally.moves++;
+            }
+
+            // check the final states against the mirrors and end the games
+            for (int g = 0; g < games; ++g) out.write("STATE " + ids[g] + "\nEND " + ids[g] + "\n");
+            out.flush();
+            for (int g = 0; g < games; ++g) {
+                String state = in.readLine();
+                String end = in.readLine();
+                if (state == null || end == null) throw new IOException("Server closed the connection");
+                if (!state.equals("OK " + GameServer.stateOf(mirrors[g]))) tally.errors++;
+                if (!end.equals("OK")) tally.errors++;
+            }
+        }
+        return tally;
+    }
+
+    /**
+     * Generates load on a server and prints the report.
+     * <br>Usage: {@code GameLoadGenerator [sessions] [connections] [seconds] [port] [window]}
+     * <br>If no port is given, or it is 0, a server is started in this process.
+     * @param args optional number of concurrent games (default 10000), number of connections (default 64), duration of
+     * the run in seconds (default 10), port of a running server and number of requests each connection may have
+     * awaiting their responses (default {@value #DEFAULT_WINDOW})
+     * @throws IOException if the server can't be started or reached
+     */
+    public static void main(String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long nanos = TimeUnit.SECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 10);
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int window = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_WINDOW;
+        Report report;
+        if (port != 0) {
+            report = run(port, sessions, connections, window, nanos);
+        } else {
+            try (GameSessions games = new GameSessions(); GameServer server = new GameServer(0, games)) {
+                server.start();
+                report = run(server.port(), sessions, connections, window, nanos);
+            }
+        }
+        System.out.println(report);
+        if (report.errors() > 0) System.exit(1);
+    }
+}
@@ -6,22 +6,43 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class represent a logger for logging game statistics.
+ * <br>The log of a game is built in memory and handed to the logger's {@link LogSink} in a single write. A logger
+ * must only be used by one thread at a time, though its sink may be shared.
  */
 public class GameLogger {
-    private final PrintStream out;
+    private static final String SECTION_BREAK = "*".repeat(75);
+    private static final Collection<Position> POSITIONS =
+            IntStream.range(0, BitBoard.NUM_SQUARES).mapToObj(Position::of).toList();
+
+    private final LogSink sink;
+    private final StringBuilder out = new StringBuilder();    // the log of the game being logged
 
     /**
      * Constructs a logger that will output into a specified {@code PrintStream}.
      * @param o the stream into which the logger will print
      */
     public GameLogger(PrintStream o) {
-        out = o;
+        this(LogSink.of(o));
+    }
+
+    /**
+     * Constructs a logger that will output into a specified sink.
+     * @param sink the sink into which the logger will write
+     */
+    public GameLogger(LogSink sink) {
+        this.sink = sink;
     }
+
+    private void println(String line) {
+        out.append(line).append(System.lineSeparator());
+    }
+
     private void sectionBreak() {
-        out.println("*".repeat(75));
+        println(SECTION_BREAK);
     }
 
     /**
@@ -33,11 +54,19 @@ public class GameLogger {
      * @param <T> the type of objects from which the information is extracted
      */
     private <T> void log(Collection<T> c, Comparator<T> comp, Predicate<T> filter, Function<T, String> format) {
-        c.stream().filter(filter).sorted(comp).map(format).forEach(out::println);
+        c.stream().filter(filter).sorted(comp).map(format).forEach(this::println);
         sectionBreak();
     }
 
-    public void logGame(Player winner, Set<Position> posSet, Set<ConcretePiece> pieceSet) {
+    /**
+     * Logs the statistics of a finished game: the moves, captures and move distances of the pieces, and the number of
+     * pieces that stepped on each position.
+     * @param winner the winner of the game, required for sorting purposes
+     * @param steps the steps of the pieces of the game on each square
+     * @param pieceSet the pieces of the game
+     */
+    public void logGame(Player winner, StepCounter steps, Set<ConcretePiece> pieceSet) {
+        out.setLength(0);
         Function<ConcretePiece, String> moveFormat = p -> {
             StringBuilder sb = new StringBuilder();
             sb.append(p.toString());
@@ -60,7 +89,8 @@ public class GameLogger {
         log(pieceSet, ConcretePiece.getMoveDistComparator(winner),
                 cp -> cp.getTotalMoveDist() > 0, distFormat);
 
-        Function<Position, String> stepFormat = p -> p.toString() + p.getSteppedCount() + " pieces";
-        log(posSet, Position.steppedComp, p -> p.getSteppedCount() >= 2, stepFormat);
+        Function<Position, String> stepFormat = p -> p.toString() + steps.getSteppedCount(p.index()) + " pieces";
+        log(POSITIONS, steps.steppedComparator(), p -> steps.getSteppedCount(p.index()) >= 2, stepFormat);
+        sink.write(out.toString());
     }
 }
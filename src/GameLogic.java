@@ -1,10 +1,7 @@
-import java.util.AbstractMap;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.Stack;
-import java.util.stream.Collectors;
 
 /**
  * This class represent the main logic of the game, holding the game state and performing actions as required.
@@ -14,45 +11,169 @@ public class GameLogic implements PlayableLogic {
      * The width and height of the game board, currently the board can only be square.
      */
     public static final int BOARD_SIZE = 11;
+    /**
+     * An upper bound on the number of legal moves of a player, which is the required size of a move buffer.
+     * <br>Each empty square can only be reached by the nearest piece in each of the four directions.
+     */
+    public static final int MAX_MOVES = 4 * BitBoard.NUM_SQUARES;
+    /**
+     * The resource holding the standard initial board state, in the format of {@link BoardStateLoader#loadFile}.
+     */
+    public static final String INITIAL_BOARD_RESOURCE = "resources/InitialBoardState.txt";
 
-    private final ConcretePlayer p1 = new ConcretePlayer(true);
-    private final ConcretePlayer p2 = new ConcretePlayer(false);
-    private Player currentTurn = p2;
+    private final ConcretePlayer p1;
+    private final ConcretePlayer p2;
+    private Player currentTurn;
+    private final BoardLayout layout;       // the board state set on start and on reset
 
-    private final Map<Position, Piece> pieces = new HashMap<>();
-    private final Set<Position> posSet = new HashSet<>();   // set of known position for logging purposes
+    // the board is held as the index (in pieces) of the piece on each square (see BitBoard.square), or EMPTY, along
+    // with occupancy masks
+    private static final byte EMPTY = -1;
+    private final ConcretePiece[] pieces;   // the game's pieces, indexed as in the layout
+    private final byte[] board = new byte[BitBoard.NUM_SQUARES];
+    private final BitBoard attackers = new BitBoard();    // squares of player 2's pawns
+    private final BitBoard defenders = new BitBoard();    // squares of player 1's pawns, the king is not included
+    private final BitBoard occupied = new BitBoard();     // union of all the masks above and the king
+    private int kingSquare = -1;    // square of the king, or -1 while it is off the board
+    private ConcretePlayer winner = null;   // winner of the current board state, updated after every change to it
+    private long hash = 0;      // Zobrist hash of the board and turn, kept up to date by place(), remove(), changeTurn()
+    private final StepCounter steps;        // steps of the pieces on each square for logging purposes
     private final Set<ConcretePiece> pieceSet = new HashSet<>();    // set of known pieces for logging purposes
+    private boolean loggingEnabled = true;  // whether game-end statistics are printed
+    private GameLogger logger = new GameLogger(LogSink.console());
+    private static final GameListener[] NO_LISTENERS = new GameListener[0];
+    // replaced, never changed, when a listener is added or removed under the game's lock; read once per event
+    private volatile GameListener[] listeners = NO_LISTENERS;
+    private final BitBoard changed = new BitBoard();    // squares changed by the game's moves since last drained
+    private boolean snapshotsEnabled = false;   // whether a snapshot is published after every change to the game
+    private volatile BoardSnapshot snapshot = null;     // the last published snapshot, null while disabled
 
-    /**
-     * This record holds the information on a game move that is required to undo it.
-     * @param piece the piece that was moved
-     * @param source the piece's previous position
-     * @param destination the piece's new position
-     * @param captures a map of the pieces that were captured, tied to their death locations
-     */
-    private record GameMove(ConcretePiece piece, Position source, Position destination, Map<Position, Piece> captures) { }
-    private final Stack<GameMove> history = new Stack<>();
+    // undo log of the moves performed, first the game's history performed by move(), then the moves performed by
+    // makeMove() on top of it. Each entry packs the move (see Move) in bits 0-15, the mask of directions (bit 1 << d)
+    // from its destination in which pieces were captured in bits 16-19, and the index of the piece captured in
+    // direction d in bits 20 + 8 * d to 27 + 8 * d
+    private static final int CAPTURE_DIRS_SHIFT = 16, CAPTURED_SHIFT = 20;
+    private long[] undoLog = new long[64];
+    private int historyLength = 0;  // number of entries of the game's history
+    private int searchPly = 0;      // number of entries of makeMove() above the history
 
+    // sets the board state of the layout, the pieces must be at their initial positions
     private void initializeBoard() {
-        pieces.clear();
-        BoardStateLoader parser = new BoardStateLoader(p1, p2);
-        Map<Position, Piece> loaded = parser.loadFile("resources/InitialBoardState.txt");
-        pieces.putAll(loaded);
-        posSet.addAll(loaded.keySet());
-        pieceSet.addAll(loaded.values().stream().map(p -> (ConcretePiece) p).collect(Collectors.toSet()));
+        layout.copyTo(board, attackers, defenders, occupied);
+        kingSquare = layout.kingSquare();
+        hash = layout.hash();
+        winner = checkWinner();
+        for (int i = 0; i < pieces.length; ++i) steps.step(layout.square(i), i);
+        pieceSet.addAll(Arrays.asList(pieces));
     }
 
     /**
      * Constructs a new game logic and starts the game logically.
-     * <p>Note that currently the initial board state is loaded from a hard-coded text file.</p>
+     * <p>The initial board state is loaded from {@link #INITIAL_BOARD_RESOURCE}.</p>
      */
     public GameLogic() {
+        this(INITIAL_BOARD_RESOURCE);
+    }
+
+    /**
+     * Constructs a new game logic starting from the board state of a resource file, which is also the state restored
+     * by {@link #reset()}.
+     * <br>The board must hold exactly one king. Player 2 (the attacker) moves first, as in the standard game.
+     * <br>The resource is only parsed once, the first time it is used (see {@link BoardLayout#of}).
+     * @param boardResource the path of the resource file, in the format of {@link BoardStateLoader#loadFile}
+     * @throws RuntimeException if the resource can't be read
+     * @throws IllegalArgumentException if the resource is not in the correct format or doesn't hold exactly one king
+     */
+    public GameLogic(String boardResource) {
+        p1 = new ConcretePlayer(true);
+        p2 = new ConcretePlayer(false);
+        currentTurn = p2;
+        layout = BoardLayout.of(boardResource);
+        pieces = layout.newPieces(p1, p2);
+        steps = new StepCounter(pieces.length);
         initializeBoard();
     }
 
+    /**
+     * Constructs a copy of a game's current board state for search purposes, see {@link #copyForSearch()}.
+     * @param other the game to copy
+     */
+    private GameLogic(GameLogic other) {
+        if (other.searchPly != 0) throw new IllegalStateException("Cannot copy a game in the middle of a search");
+        p1 = other.p1;
+        p2 = other.p2;
+        currentTurn = other.currentTurn;
+        steps = other.steps;
+        layout = other.layout;
+        pieces = other.pieces;
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        attackers.copyFrom(other.attackers);
+        defenders.copyFrom(other.defenders);
+        kingSquare = other.kingSquare;
+        winner = other.winner;
+        occupied.copyFrom(other.occupied);
+        hash = other.hash;
+    }
+
+    /**
+     * Creates a cheap copy of the current board state, to be searched independently of this game (e.g. on another
+     * thread) with {@link #makeMove} and {@link #unmakeMove}.
+     * <br>The copy shares its pieces, step counts and players with this game and has none of its history, so it must only
+     * be changed through {@link #makeMove} and {@link #unmakeMove}, and logging statistics should not be read from it.
+     * @return a copy of the current board state
+     * @throws IllegalStateException if this game has moves performed by {@link #makeMove} that were not reverted
+     */
+    public GameLogic copyForSearch() {
+        return new GameLogic(this);
+    }
+
+    /**
+     * Returns the occupancy mask that tracks the pawns of a player.
+     * @param owner the player whose mask is required
+     * @return the mask in which {@code owner}'s pawns are kept
+     */
+    private BitBoard pawnsOf(Player owner) {
+        return owner == p2 ? attackers : defenders;
+    }
+
+    /**
+     * Returns the kind of a piece for hashing purposes.
+     * @param p the piece whose kind is required
+     * @return the kind of {@code p}, as defined in {@link Zobrist}
+     */
+    private int kindOf(ConcretePiece p) {
+        if (p instanceof King) return Zobrist.KING;
+        return p.getOwner() == p2 ? Zobrist.ATTACKER_PAWN : Zobrist.DEFENDER_PAWN;
+    }
+
+    private ConcretePiece pieceOn(int s) {
+        return board[s] == EMPTY ? null : pieces[board[s]];
+    }
+
+    private void place(int piece, int s) {
+        ConcretePiece p = pieces[piece];
+        board[s] = (byte) piece;
+        if (p instanceof King) kingSquare = s;
+        else pawnsOf(p.getOwner()).set(s);
+        occupied.set(s);
+        hash ^= Zobrist.key(kindOf(p), s);
+    }
+
+    private int remove(int s) {
+        int piece = board[s];
+        ConcretePiece p = pieces[piece];
+        hash ^= Zobrist.key(kindOf(p), s);
+        if (p instanceof King) kingSquare = -1;
+        else pawnsOf(p.getOwner()).clear(s);
+        occupied.clear(s);
+        board[s] = EMPTY;
+        return piece;
+    }
+
     private void changeTurn() {
         if (currentTurn == p2) currentTurn = p1;
         else if (currentTurn == p1) currentTurn = p2;
+        hash ^= Zobrist.DEFENDER_TO_MOVE;
     }
 
     /**
@@ -67,112 +188,209 @@ public class GameLogic implements PlayableLogic {
      * @param src the starting position of the piece.
      * @param dst the destination position for the piece
      * @return true if the move is legal and occurred
+     * @throws IllegalStateException if there are moves performed by {@link #makeMove} that were not reverted
      */
     @Override
     public boolean move(Position src, Position dst) {
-        // the following line is a workaround to the fact that dst is always a new instance, when we want it to be
-        // the instance that represents the position in posSet (for dst.stepHere() later on)
-        for (Position pos : posSet) if (pos.equals(dst)) { dst = pos; break; }
         if (src.equals(dst) || (src.x() != dst.x() && src.y() != dst.y())) return false;    // illegal move
-        ConcretePiece p = (ConcretePiece) getPieceAtPosition(src);
+        int from = src.index();
+        int to = dst.index();
+        // dst may be any instance, we want it to be the canonical one (for the piece's history later on)
+        dst = Position.of(to);
+        if (searchPly != 0) throw new IllegalStateException("Cannot move in the middle of a search");
+        ConcretePiece p = pieceOn(from);
         if (p == null) return false;    // no piece in source position
         if (p.getOwner() != currentTurn) return false;      // trying to move piece from wrong player
-        if (p instanceof Pawn && dst.isCorner()) return false;  // trying to move pawn into corner
-        if (src.x() == dst.x()) {
-            int x = src.x();
-            if (src.y() < dst.y()) {    // moving down
-                for (int y = src.y() + 1; y <= dst.y(); ++y) {
-                    if (getPieceAtPosition(new Position(x, y)) != null) return false;
-                }
-            }
-            if (src.y() > dst.y()) {    // moving up
-                for (int y = src.y() - 1; y >= dst.y(); --y) {
-                    if (getPieceAtPosition(new Position(x, y)) != null) return false;
-                }
-            }
-        }
-        if (src.y() == dst.y()) {
-            int y = src.y();
-            if (src.x() < dst.x()) {    // moving right
-                for (int x = src.x() + 1; x <= dst.x(); ++x) {
-                    if (getPieceAtPosition(new Position(x, y)) != null) return false;
-                }
-            }
-            if (src.x() > dst.x()) {    // moving left
-                for (int x = src.x() - 1; x >= dst.x(); --x) {
-                    if (getPieceAtPosition(new Position(x, y)) != null) return false;
-                }
-            }
-        }
-        pieces.remove(src);
-        pieces.put(dst, p);
-        posSet.add(dst);        // dst is now an encountered position, so it should be added to the set
+        if (p instanceof Pawn && BitBoard.CORNERS.get(to)) return false;  // trying to move pawn into corner
+        if (BitBoard.isPathBlocked(from, to, occupied)) return false;     // trying to move through another piece
+        long entry = performMove(from, to);
         p.addMove(dst);
-        dst.stepHere(p);
-
-        Map<Position, Piece> captures = new HashMap<>();
-        Map.Entry<Position, Piece> capture;
-        // this line (and the following similar ones) first attempts a capture into the location, then if the capture
-        // returned non-null (the capture happened) adds it to the captures map
-        if (null != (capture = attemptCapture(dst, dst.x() - 1, dst.y())))
-            captures.put(capture.getKey(), capture.getValue());
-        if (null != (capture = attemptCapture(dst, dst.x() + 1, dst.y())))
-            captures.put(capture.getKey(), capture.getValue());
-        if (null != (capture = attemptCapture(dst, dst.x(), dst.y() - 1)))
-            captures.put(capture.getKey(), capture.getValue());
-        if (null != (capture = attemptCapture(dst, dst.x(), dst.y() + 1)))
-            captures.put(capture.getKey(), capture.getValue());
-
-        // log the move with all required information in the move history stack
-        history.push(new GameMove(p, src, dst, captures));
+        steps.step(to, board[to]);
+        if (p instanceof Pawn pawn) pawn.addCaptures(captureCount(entry));
+
+        // log the move in the history, which holds all the information required to undo it
+        pushUndo(entry);
+        historyLength++;
+        markChanged(entry);
 
         changeTurn();
 
-        ConcretePlayer winner = checkWinner();
+        winner = checkWinner();
+        publishSnapshot();
+        GameListener[] listeners = this.listeners;
+        if (listeners.length != 0) fireMove(listeners, entry);
         if (winner != null) {   // game-end actions
             winner.addWin();
             logGame(winner);
+            for (GameListener listener : listeners) listener.gameWon(winner);
         }
         return true;
     }
 
     /**
-     * Attempts a capture from a given position to an unconstructed position.
-     * <br>If all conditions for the capture are fulfilled, the captured piece is removed from the board.
-     * @param capturerP position from which the capture is trying to happen, should always have a piece in it
-     * @param capturedX x coordinate trying to be captured
-     * @param capturedY y coordinate trying to be captured
-     * @return the captured position and the captured piece, or null if no capture occurred
-     * @throws IllegalArgumentException if {@code capturerP} does not host a piece
-     */
-    private Map.Entry<Position, Piece> attemptCapture(Position capturerP, int capturedX, int capturedY) {
-        if (!Position.isInsideBoard(capturedX, capturedY)) return null;    // no capture to happen outside the board
-        Position capturedP = new Position(capturedX, capturedY);
-        if (capturedP.isCorner()) return null;     // there shouldn't be anything to capture in the corner
-        Piece capturer = getPieceAtPosition(capturerP);
-        assert capturer != null : "Tried to capture from empty spot";   // should never happen
-        if (!(capturer instanceof Pawn)) return null;     // king can't capture
-        Piece captured = getPieceAtPosition(capturedP);
-        if (captured == null) return null;     // no piece to capture
-        if (captured.getOwner() == capturer.getOwner()) return null;   // can't capture an ally
-        if (captured instanceof King) return null;     // king isn't captured normally, checked in checkWinner()
-        // calculate the direction from the capturer to the captured, adding this delta will give where the assist
-        // piece should be (other side of the captured)
-        int dX = capturedP.x() - capturerP.x();
-        int dY = capturedP.y() - capturerP.y();
-        if (Position.isInsideBoard(capturedP.x() + dX, capturedP.y() + dY)) {   // otherwise capture against the edge
-            Position assistP = new Position(capturedP.x() + dX, capturedP.y() + dY);
-            if (!assistP.isCorner()) {    // otherwise capture against a corner
-                Piece assist = getPieceAtPosition(assistP);
-                if (assist == null) return null;   // no piece to assist the capture
-                if (assist.getOwner() != capturer.getOwner()) return null;     // assist must be from same player
-                if (assist instanceof King) return null;   // king can't assist capture
+     * Moves the piece on a square and performs its captures, updating the board, the masks and the hash but not the
+     * turn.
+     * @param from the square of the moving piece
+     * @param to the square the piece moves to
+     * @return the undo log entry of the move, holding everything {@link #revertMove} requires
+     */
+    private long performMove(int from, int to) {
+        int piece = remove(from);
+        place(piece, to);
+        long entry = Move.of(from, to);
+        if (!(pieces[piece] instanceof Pawn)) return entry;    // king can't capture
+        boolean attacker = pieces[piece].getOwner() == p2;
+        for (int d = 0; d < 4; ++d) {
+            int capturedS = captureTarget(attacker, to, d);
+            if (capturedS < 0) continue;
+            entry |= 1L << (CAPTURE_DIRS_SHIFT + d) | (long) remove(capturedS) << (CAPTURED_SHIFT + 8 * d);
+        }
+        return entry;
+    }
+
+    /**
+     * Reverts a move performed by {@link #performMove}, moving the piece back and placing back the captured pieces.
+     * @param entry the undo log entry of the move
+     */
+    private void revertMove(long entry) {
+        int to = Move.to((int) entry);
+        place(remove(to), Move.from((int) entry));
+        for (int d = 0; d < 4; ++d) {
+            if ((entry & 1L << (CAPTURE_DIRS_SHIFT + d)) == 0) continue;
+            place((int) (entry >>> (CAPTURED_SHIFT + 8 * d)) & 0xFF, BitBoard.neighbour(to, d));
+        }
+    }
+
+    // marks the squares of a move and its captures as changed
+    private void markChanged(long entry) {
+        int to = Move.to((int) entry);
+        changed.set(Move.from((int) entry));
+        changed.set(to);
+        for (int d = 0; d < 4; ++d) {
+            if ((entry & 1L << (CAPTURE_DIRS_SHIFT + d)) != 0) changed.set(BitBoard.neighbour(to, d));
+        }
+    }
+
+    private static void fireMove(GameListener[] listeners, long entry) {
+        int to = Move.to((int) entry);
+        int move = Move.of(Move.from((int) entry), to);
+        for (GameListener listener : listeners) {
+            listener.pieceMoved(move);
+            for (int d = 0; d < 4; ++d) {
+                if ((entry & 1L << (CAPTURE_DIRS_SHIFT + d)) != 0) listener.pieceCaptured(BitBoard.neighbour(to, d));
             }
         }
-        // if we didn't return null up to here, the capture is valid and we can perform its actions
-        pieces.remove(capturedP);
-        ((Pawn) capturer).addCapture();
-        return new AbstractMap.SimpleEntry<>(capturedP, captured);
+    }
+
+    private static void fireUndo(GameListener[] listeners, long entry) {
+        int to = Move.to((int) entry);
+        int move = Move.of(Move.from((int) entry), to);
+        for (GameListener listener : listeners) {
+            listener.moveUndone(move);
+            for (int d = 0; d < 4; ++d) {
+                if ((entry & 1L << (CAPTURE_DIRS_SHIFT + d)) != 0) listener.captureUndone(BitBoard.neighbour(to, d));
+            }
+        }
+    }
+
+    private static int captureCount(long entry) {
+        return Long.bitCount(entry >>> CAPTURE_DIRS_SHIFT & 0xF);
+    }
+
+    private void pushUndo(long entry) {
+        int length = historyLength + searchPly;
+        if (length == undoLog.length) undoLog = Arrays.copyOf(undoLog, length * 2);
+        undoLog[length] = entry;
+    }
+
+    /**
+     * Checks whether a pawn on a square captures the square next to it in a given direction, without changing anything.
+     * @param attacker true if the capturing pawn is owned by player 2 (the attacker)
+     * @param capturerS the square of the capturer
+     * @param d the direction from the capturer to the square trying to be captured
+     * @return the square of the captured pawn, or -1 if no capture should occur
+     */
+    private int captureTarget(boolean attacker, int capturerS, int d) {
+        // the target is never outside the board or in a corner (there shouldn't be anything to capture in the corner)
+        int capturedS = BitBoard.captureTarget(capturerS, d);
+        // only enemy pawns can be captured, the king isn't captured normally, checked in checkWinner()
+        if (capturedS < 0 || !(attacker ? defenders : attackers).get(capturedS)) return -1;
+        // unless the capture is against the edge or against a corner, the assist on the other side of the captured must
+        // be an allied pawn
+        int assistS = BitBoard.captureAssist(capturerS, d);
+        if (assistS >= 0 && !(attacker ? attackers : defenders).get(assistS)) return -1;
+        return capturedS;
+    }
+
+    /**
+     * Performs a move for search purposes, without any of the logging and statistics bookkeeping of {@link #move}.
+     * <br>The board, captures and turn are updated exactly as {@link #move} would, but positions, pieces, the game's
+     * history and the players' wins are left untouched.
+     * <p>Every call must be reverted with {@link #unmakeMove} before the game is changed in any other way.</p>
+     * @param move a legal move for the current player, as generated by {@link #generateMoves}
+     */
+    public void makeMove(int move) {
+        pushUndo(performMove(Move.from(move), Move.to(move)));
+        searchPly++;
+        changeTurn();
+        winner = checkWinner();
+    }
+
+    /**
+     * Reverts the last move performed by {@link #makeMove}.
+     * @throws IllegalStateException if there is no such move to revert
+     */
+    public void unmakeMove() {
+        if (searchPly == 0) throw new IllegalStateException("No search move to unmake");
+        revertMove(undoLog[historyLength + --searchPly]);
+        changeTurn();
+        winner = checkWinner();
+    }
+
+    /**
+     * Checks whether a legal move captures any piece, without performing it.
+     * @param move a legal move for the current player, as generated by {@link #generateMoves}
+     * @return true if performing {@code move} would capture at least one piece
+     */
+    public boolean isCapture(int move) {
+        ConcretePiece p = pieceOn(Move.from(move));
+        if (!(p instanceof Pawn)) return false;
+        // the source square never takes part in the capture, since the square next to the destination in the
+        // direction of the source is on the path of the move and so it's empty
+        for (int d = 0; d < 4; ++d) if (captureTarget(p.getOwner() == p2, Move.to(move), d) >= 0) return true;
+        return false;
+    }
+
+    /**
+     * Generates all the legal moves of a player in the current board state, in the compact encoding of {@link Move}.
+     * <br>The generated moves are exactly the ones {@link #move} would accept if it were {@code player}'s turn: straight
+     * moves onto empty squares that don't pass through another piece, excluding moves of pawns into corners.
+     * <p>This method does not allocate, the moves are written into a caller-owned buffer.</p>
+     * @param player the player whose moves are generated
+     * @param moves the buffer to write the moves into, must have room for at least {@link #MAX_MOVES} moves
+     * @return the number of moves written into {@code moves}
+     */
+    public int generateMoves(Player player, int[] moves) {
+        BitBoard pawns = player.isPlayerOne() ? defenders : attackers;
+        int n = 0;
+        for (long bits = pawns.lo; bits != 0; bits &= bits - 1)
+            n = generateSlides(Long.numberOfTrailingZeros(bits), true, moves, n);
+        for (long bits = pawns.hi; bits != 0; bits &= bits - 1)
+            n = generateSlides(64 + Long.numberOfTrailingZeros(bits), true, moves, n);
+        if (player.isPlayerOne() && kingSquare >= 0) n = generateSlides(kingSquare, false, moves, n);
+        return n;
+    }
+
+    private int generateSlides(int from, boolean pawn, int[] moves, int n) {
+        for (int d = 0; d < 4; ++d) {
+            for (int i = 0, len = BitBoard.rayLength(from, d); i < len; ++i) {
+                int to = BitBoard.raySquare(from, d, i);
+                if (occupied.get(to)) break;    // can't move onto or through another piece
+                if (pawn && BitBoard.CORNERS.get(to)) continue;    // pawns can't move into corners
+                moves[n++] = Move.of(from, to);
+            }
+        }
+        return n;
     }
 
     /**
@@ -182,7 +400,29 @@ public class GameLogic implements PlayableLogic {
      */
     @Override
     public Piece getPieceAtPosition(Position position) {
-        return pieces.get(position);
+        return pieceOn(position.index());
+    }
+
+    /**
+     * Returns the shared instance of a position, see {@link Position#of(int, int)}.
+     * <br>Positions are immutable and the same instance is returned to every game and thread.
+     * @param x x coordinate of the position
+     * @param y y coordinate of the position
+     * @return the position at the specified coordinates
+     * @throws IllegalArgumentException if the coordinates are outside the board
+     */
+    public Position getPosition(int x, int y) {
+        if (!Position.isInsideBoard(x, y)) throw new IllegalArgumentException("Position is outside the board");
+        return Position.of(x, y);
+    }
+
+    /**
+     * Returns the shared instance of a position by its square index, see {@link Position#of(int)}.
+     * @param index the index of the position, see {@link Position#index()}
+     * @return the position at the specified index
+     */
+    public Position getPosition(int index) {
+        return Position.of(index);
     }
 
     /**
@@ -205,37 +445,98 @@ public class GameLogic implements PlayableLogic {
 
     /**
      * This method checks if a player has won, according to the game rules.
+     * <br>The check is constant-time: the king's square is tracked by {@link #place} and {@link #remove}, and its
+     * neighbourhood is a precomputed mask. It is performed after every change to the board and cached in
+     * {@code winner}.
      * @return the winning player, or {@code null} if no player has won yet
      */
     private ConcretePlayer checkWinner() {
-        // the following lines find the king's position
-        Position kingPos = pieces.entrySet().stream()
-                .filter(e -> e.getValue() instanceof King)
-                .findFirst().orElseThrow(() -> new RuntimeException("King not found in board"))
-                .getKey();
-        if (kingPos.isCorner()) return p1;  // king is in a corner, defender wins
-        int boxedSides = 0;     // number of sides from which the king is boxed, either by the edge or by an attacker
-        if (Position.isInsideBoard(kingPos.x() - 1, kingPos.y())) {
-            Position side = new Position(kingPos.x() - 1, kingPos.y());
-            // check if there is a piece on the side, and if it is from the attacker
-            if (getPieceAtPosition(side) != null && getPieceAtPosition(side).getOwner() == p2) boxedSides += 1;
-        } else boxedSides += 1;     // king is against the edge
-        if (Position.isInsideBoard(kingPos.x() + 1, kingPos.y())) {
-            Position side = new Position(kingPos.x() + 1, kingPos.y());
-            if (getPieceAtPosition(side) != null && getPieceAtPosition(side).getOwner() == p2) boxedSides += 1;
-        } else boxedSides += 1;
-        if (Position.isInsideBoard(kingPos.x(), kingPos.y() - 1)) {
-            Position side = new Position(kingPos.x(), kingPos.y() - 1);
-            if (getPieceAtPosition(side) != null && getPieceAtPosition(side).getOwner() == p2) boxedSides += 1;
-        } else boxedSides += 1;
-        if (Position.isInsideBoard(kingPos.x(), kingPos.y() + 1)) {
-            Position side = new Position(kingPos.x(), kingPos.y() + 1);
-            if (getPieceAtPosition(side) != null && getPieceAtPosition(side).getOwner() == p2) boxedSides += 1;
-        } else boxedSides += 1;
-        if (boxedSides == 4) return p2;     // if king is boxed from all sides, attacker wins
+        if (kingSquare < 0) throw new RuntimeException("King not found in board");
+        if (BitBoard.CORNERS.get(kingSquare)) return p1;  // king is in a corner, defender wins
+        // if king is boxed from all sides, either by the edge or by an attacker, attacker wins
+        if (BitBoard.isSurrounded(kingSquare, attackers)) return p2;
         return null;    // if we got here, no player has won yet
     }
 
+    /**
+     * Returns the player that has won in the current board state.
+     * @return the winning player, or {@code null} if no player has won yet
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the number of moves in the game's history, which are the moves performed by {@link #move} and not undone.
+     * @return the length of the history
+     */
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    /**
+     * Returns a move of the game's history.
+     * @param i the index of the move in the history, 0 being the first move of the game
+     * @return the move, in the encoding of {@link Move}
+     * @throws IndexOutOfBoundsException if {@code i} is not less than {@link #getHistoryLength()}
+     */
+    public int getHistoryMove(int i) {
+        return (int) undoLog[Objects.checkIndex(i, historyLength)] & 0xFFFF;
+    }
+
+    /**
+     * Returns the Zobrist hash of the current board state, including whose turn it is.
+     * <br>The hash is maintained incrementally by every change to the board, so this method is constant-time. Equal
+     * states always have equal hashes, regardless of the moves that led to them.
+     * @return the 64-bit hash of the current state
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the player whose turn it currently is.
+     * @return the current player
+     */
+    public Player getCurrentPlayer() {
+        return currentTurn;
+    }
+
+    /**
+     * Returns the square of the king, see {@link BitBoard#square}.
+     * @return the square of the king
+     */
+    public int getKingSquare() {
+        return kingSquare;
+    }
+
+    /**
+     * Returns the number of pawns a player has on the board.
+     * @param player the player whose pawns are counted
+     * @return the number of the player's pawns, the king is not included
+     */
+    public int getPawnCount(Player player) {
+        return player.isPlayerOne() ? defenders.count() : attackers.count();
+    }
+
+    /**
+     * Checks whether a square holds any piece.
+     * @param square the square to check, see {@link BitBoard#square}
+     * @return true if there is a piece on {@code square}
+     */
+    public boolean isOccupied(int square) {
+        return occupied.get(square);
+    }
+
+    /**
+     * Checks whether a square holds a pawn of player 2 (the attacker).
+     * @param square the square to check, see {@link BitBoard#square}
+     * @return true if there is an attacking pawn on {@code square}
+     */
+    public boolean isAttacker(int square) {
+        return attackers.get(square);
+    }
+
     /**
      * This method checks whether the game is finished.
      * @return true if the game is finished according to the game rules
@@ -243,7 +544,7 @@ public class GameLogic implements PlayableLogic {
 
     @Override
     public boolean isGameFinished() {
-        return checkWinner() != null;
+        return winner != null;
     }
 
     /**
@@ -258,43 +559,54 @@ public class GameLogic implements PlayableLogic {
     /**
      * This method resets the game to its initial state. This resets the board state, piece and position statistics,
      * and clears the history.
+     * <br>The board is copied from the cached initial layout and the pieces are restarted in place, so this is cheap.
      * <br>Note: The number of wins for each player is not cleared by this operation.
      */
     @Override
     public void reset() {
-        posSet.clear();
         pieceSet.clear();
-        history.clear();
+        historyLength = 0;
+        searchPly = 0;
+        steps.clear();
+        for (int i = 0; i < pieces.length; ++i) pieces[i].restart(Position.of(layout.square(i)));
         initializeBoard();
         currentTurn = p2;
+        for (int s = 0; s < BitBoard.NUM_SQUARES; ++s) changed.set(s);
+        publishSnapshot();
+        for (GameListener listener : listeners) listener.gameReset();
     }
 
     /**
      * This method undoes the last performed move.
      * <br>This returns the board to its previous state, and removes the move from the pieces' and positions' histories.
+     * @throws IllegalStateException if there are moves performed by {@link #makeMove} that were not reverted
      */
     @Override
     public void undoLastMove() {
-        if (history.isEmpty()) {
+        if (historyLength == 0) {
             return;     // no move to undo
         }
-        GameMove move = history.pop();
-        ConcretePiece stepper = move.piece();
+        if (searchPly != 0) throw new IllegalStateException("Cannot undo a move in the middle of a search");
+        long entry = undoLog[--historyLength];
+        int destination = Move.to((int) entry);
+        ConcretePiece stepper = pieceOn(destination);
 
         // notify relevant objects of the undo
         stepper.undoMove();
-        move.destination().undoStep(stepper);
-
-        // move the piece back
-        pieces.remove(move.destination());
-        pieces.put(move.source(), stepper);
+        steps.undoStep(destination, board[destination]);
 
-        // if the moved piece is a pawn, notify it of the undo (for capture statistics) and restore the captured pieces
-        if (stepper instanceof Pawn p) p.undoCaptures(move.captures().size());
-        pieces.putAll(move.captures());
+        // move the piece back and restore the captured pieces, and if the moved piece is a pawn, notify it of the undo
+        // (for capture statistics)
+        revertMove(entry);
+        if (stepper instanceof Pawn p) p.undoCaptures(captureCount(entry));
+        markChanged(entry);
 
         // switch turns back
         changeTurn();
+        winner = checkWinner();
+        publishSnapshot();
+        GameListener[] listeners = this.listeners;
+        if (listeners.length != 0) fireUndo(listeners, entry);
     }
 
     /**
@@ -306,12 +618,108 @@ public class GameLogic implements PlayableLogic {
         return BOARD_SIZE;
     }
 
+    /**
+     * Sets whether game-end statistics are logged when a player wins, which they are by default.
+     * <br>Wins are still counted when logging is disabled.
+     * @param enabled true to log game-end statistics
+     */
+    public void setLoggingEnabled(boolean enabled) {
+        loggingEnabled = enabled;
+    }
+
+    /**
+     * Registers a listener to the events of the game, see {@link GameListener}.
+     * <br>Listeners receive each event in the order they were added. A game without listeners pays nothing for events.
+     * <br>Listeners may be added and removed from any thread. A listener added or removed while the game changes may or
+     * may not receive the events of that change.
+     * @param listener the listener to add
+     */
+    public synchronized void addListener(GameListener listener) {
+        GameListener[] listeners = this.listeners;
+        GameListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = Objects.requireNonNull(listener);
+        this.listeners = added;
+    }
+
+    /**
+     * Unregisters a listener, so it receives no more events of the game.
+     * @param listener the listener to remove
+     * @return true if the listener was registered
+     */
+    public synchronized boolean removeListener(GameListener listener) {
+        GameListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; ++i) {
+            if (listeners[i] != listener) continue;
+            GameListener[] removed = new GameListener[listeners.length - 1];
+            System.arraycopy(listeners, 0, removed, 0, i);
+            System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+            this.listeners = removed.length == 0 ? NO_LISTENERS : removed;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the squares whose content changed since the game was constructed or since the last call into a mask, so
+     * that only they need to be redrawn.
+     * <br>A move or an undo changes the source and destination squares of the move and the squares of its captures, and
+     * a reset changes all the squares. Moves performed by {@link #makeMove} are not tracked.
+     * @param squares the mask that is set to the changed squares
+     */
+    public void drainChangedSquares(BitBoard squares) {
+        squares.copyFrom(changed);
+        changed.clearAll();
+    }
+
+    /**
+     * Sets whether the game publishes a snapshot of its board state after every change to it.
+     * <br>While enabled, {@link #move}, {@link #undoLastMove} and {@link #reset} each publish a new snapshot, which
+     * other threads read through {@link #getSnapshot()} without locking. Moves performed by {@link #makeMove} are not
+     * published. Snapshots are disabled by default, since each one is a small allocation.
+     * @param enabled true to publish snapshots
+     */
+    public void setSnapshotsEnabled(boolean enabled) {
+        snapshotsEnabled = enabled;
+        snapshot = enabled ? takeSnapshot() : null;
+    }
+
+    /**
+     * Returns a snapshot of the board state.
+     * <br>While snapshots are enabled (see {@link #setSnapshotsEnabled}), this is the last published snapshot and may be
+     * called by any thread. Otherwise, a snapshot of the current state is taken, which is only safe on the thread that
+     * changes the game.
+     * @return an immutable snapshot of the board state
+     */
+    public BoardSnapshot getSnapshot() {
+        BoardSnapshot published = snapshot;
+        return published != null ? published : takeSnapshot();
+    }
+
+    private BoardSnapshot takeSnapshot() {
+        int winnerNumber = winner == null ? 0 : winner == p1 ? 1 : 2;
+        return new BoardSnapshot(attackers.lo, attackers.hi, defenders.lo, defenders.hi, kingSquare,
+                currentTurn == p1 ? 1 : 2, winnerNumber, historyLength, hash);
+    }
+
+    private void publishSnapshot() {
+        if (snapshotsEnabled) snapshot = takeSnapshot();
+    }
+
+    /**
+     * Sets the sink into which game-end statistics are logged, which is {@link LogSink#console()} by default.
+     * <br>A sink may be shared by several games, as long as it is thread-safe if the games run on different threads.
+     * @param sink the sink to log into
+     */
+    public void setLogSink(LogSink sink) {
+        logger = new GameLogger(sink);
+    }
+
     /**
      * This method performs game-end logging, extracting the information from the game state members.
      * @param winner which player won, required for sorting purposes
      */
     private void logGame(Player winner) {
-        GameLogger logger = new GameLogger(System.out);
-        logger.logGame(winner, posSet, pieceSet);
+        if (!loggingEnabled) return;
+        logger.logGame(winner, steps, pieceSet);
     }
 }
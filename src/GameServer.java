@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class represents a server hosting the games of a {@link GameSessions} over a local socket.
+ * <p>The protocol is line-based ASCII. Each request is a line, answered by a line starting with "OK", "ILLEGAL" or
+ * "ERR" (followed by a message). Responses are sent in the order of the requests of the connection, and a client may
+ * send requests without waiting for the responses of the previous ones. A connection that sends a line longer than 256
+ * characters is closed. The requests are:
+ * <br>{@code NEW}: creates a game, answered by {@code OK id}.
+ * <br>{@code MOVE id x1 y1 x2 y2}: moves the piece at (x1, y1) to (x2, y2), answered by {@code OK winner}, or by
+ * {@code ILLEGAL} if the move is illegal.
+ * <br>{@code UNDO id}: undoes the last move.
+ * <br>{@code RESET id}: resets the game to its initial state.
+ * <br>{@code STATE id}: answered by {@code OK turn winner moves board}.
+ * <br>{@code END id}: evicts the game.
+ * <br>Players are numbered 1 (the defender) and 2 (the attacker), and a winner of 0 means the game is not finished.
+ * See {@link #stateOf} for the format of a state.</p>
+ * <p>A single thread serves all the connections with a selector, and the requests run on the sessions' threads, so a
+ * slow game never blocks other connections.</p>
+ */
+public class GameServer implements AutoCloseable {
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 7878;
+
+    private static final int MAX_LINE = 256;        // the longest request line, without the line break
+    private static final int BUFFER_SIZE = 4096;    // initial size of a connection's buffers, holding many requests
+    private static final int MAX_PENDING = 4096;    // reading from a connection pauses while this many requests are pending
+    private static final long EVICT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final GameSessions sessions;
+    private final long idleNanos;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();  // connections with new responses
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * This class holds the state of a client connection, which is only used by the server thread.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Queue<CompletableFuture<String>> pending = new ArrayDeque<>();    // responses in request order
+        private final AtomicBoolean signalled = new AtomicBoolean(false);  // whether the connection is in completed
+
+        private Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        // called by any thread when a pending response completes
+        private void signal() {
+            if (signalled.compareAndSet(false, true)) {
+                completed.add(this);
+                selector.wakeup();
+            }
+        }
+
+        private void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            int start = in.position();
+            for (int i = start; i < in.limit(); ++i) {
+                if (in.get(i) != '\n') continue;
+                int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+                if (end - start > MAX_LINE) throw new IOException("Request line is too long");
+                String line = new String(in.array(), start, end - start, StandardCharsets.US_ASCII);
+                CompletableFuture<String> response = handle(line);
+                pending.add(response);
+                if (!response.isDone()) response.whenComplete((r, e) -> signal());
+                start = i + 1;
+            }
+            // the rest is the start of a line, whose end is yet to be read
+            if (in.limit() - start > MAX_LINE + 1) throw new IOException("Request line is too long");
+            in.position(start);
+            in.compact();
+            flush();
+        }
+
+        // writes the completed responses at the head of the queue
+        private void flush() throws IOException {
+            while (!pending.isEmpty() && pending.peek().isDone()) {
+                byte[] line = (responseOf(pending.poll()) + "\n").getBytes(StandardCharsets.US_ASCII);
+                if (out.remaining() < line.length) {
+                    out.flip();
+                    out = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.remaining() + line.length)).put(out);
+                }
+                out.put(line);
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int ops = 0;
+            if (pending.size() < MAX_PENDING) ops |= SelectionKey.OP_READ;
+            if (out.position() > 0) ops |= SelectionKey.OP_WRITE;
+            key.interestOps(ops);
+        }
+
+        private void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the connection is dropped either way
+            }
+        }
+    }
+
+    /**
+     * Constructs a server on the loopback address, which doesn't evict idle games. The server is started by
+     * {@link #start()}.
+     * @param port the port to listen on, or 0 for any free port
+     * @param sessions the sessions to host
+     * @throws IOException if the port can't be bound
+     */
+    public GameServer(int port, GameSessions sessions) throws IOException {
+        this(port, sessions, 0);
+    }
+
+    /**
+     * Constructs a server on the loopback address. The server is started by {@link #start()}.
+     * @param port the port to listen on, or 0 for any free port
+     * @param sessions the sessions to host
+     * @param idleNanos the time without requests after which a game is evicted, in nanoseconds, or 0 to keep games
+     * until they are ended
+     * @throws IOException if the port can't be bound
+     */
+    public GameServer(int port, GameSessions sessions, long idleNanos) throws IOException {
+        this.sessions = sessions;
+        this.idleNanos = idleNanos;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        thread = new Thread(this::run, "game-server");
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return the local port of the server
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Starts serving connections on a background thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        long nextEviction = System.nanoTime() + EVICT_INTERVAL_NANOS;
+        try {
+            while (running) {
+                selector.select(1000);
+                for (Connection c = completed.poll(); c != null; c = completed.poll()) {
+                    c.signalled.set(false);
+                    if (c.key.isValid()) serve(c, Connection::flush);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection c = (Connection) key.attachment();
+                        if (key.isReadable()) serve(c, Connection::read);
+                        if (key.isValid() && key.isWritable()) serve(c, Connection::flush);
+                    }
+                }
+                selector.selectedKeys().clear();
+                if (idleNanos > 0 && System.nanoTime() - nextEviction > 0) {
+                    sessions.evictIdle(idleNanos);
+                    nextEviction = System.nanoTime() + EVICT_INTERVAL_NANOS;
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) throw new IllegalStateException("Game server failed", e);
+        }
+    }
+
+    private interface ConnectionAction {
+        void run(Connection c) throws IOException;
+    }
+
+    // runs an action on a connection, dropping the connection if it fails
+    private static void serve(Connection c, ConnectionAction action) {
+        try {
+            action.run(c);
+        } catch (IOException e) {
+            c.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        new Connection(channel);
+    }
+
+    /**
+     * Handles a request line.
+     * @param line the request, without the line break
+     * @return a future of the response line, without the line break
+     */
+    private CompletableFuture<String> handle(String line) {
+        String[] args = line.trim().split("\\s+");
+        try {
+            switch (args[0]) {
+                case "NEW":
+                    return CompletableFuture.completedFuture("OK " + sessions.create());
+                case "MOVE":
+                    if (args.length != 6) throw new IllegalArgumentException("Usage: MOVE id x1 y1 x2 y2");
+                    Position src = parsePosition(args[2], args[3]);
+                    Position dst = parsePosition(args[4], args[5]);
+                    return sessions.submit(parseId(args), game -> {
+                        if (!game.move(src, dst)) return "ILLEGAL";
+                        return "OK " + playerNumber(game.getWinner());
+                    });
+                case "UNDO":
+                    return sessions.submit(parseId(args), game -> {
+                        game.undoLastMove();
+                        return "OK";
+                    });
+                case "RESET":
+                    return sessions.submit(parseId(args), game -> {
+                        game.reset();
+                        return "OK";
+                    });
+                case "STATE":
+                    return sessions.submit(parseId(args), game -> "OK " + stateOf(game));
+                case "END":
+                    if (!sessions.evict(parseId(args))) throw new IllegalArgumentException("Unknown game: " + args[1]);
+                    return CompletableFuture.completedFuture("OK");
+                default:
+                    throw new IllegalArgumentException("Unknown request: " + args[0]);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static long parseId(String[] args) {
+        if (args.length < 2) throw new IllegalArgumentException("Missing game ID");
+        return Long.parseLong(args[1]);
+    }
+
+    private static Position parsePosition(String x, String y) {
+        return Position.of(Integer.parseInt(x), Integer.parseInt(y));
+    }
+
+    // the response line of a completed future
+    private static String responseOf(CompletableFuture<String> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return "ERR " + (cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        }
+    }
+
+    private static int playerNumber(Player player) {
+        if (player == null) return 0;
+        return player.isPlayerOne() ? 1 : 2;
+    }
+
+    /**
+     * Describes the state of a game as in a {@code STATE} response: the number of the player whose turn it is, the
+     * number of the winner or 0, the number of moves in the game's history, and the board.
+     * <br>The board lists the squares in the order of {@link BitBoard#square}, each as "." if it is empty, "A" for an
+     * attacker pawn, "D" for a defender pawn or "K" for the king.
+     * @param game the game to describe
+     * @return the state of the game, its parts separated by spaces
+     */
+    public static String stateOf(GameLogic game) {
+        StringBuilder sb = new StringBuilder(BitBoard.NUM_SQUARES + 16);
+        sb.append(playerNumber(game.getCurrentPlayer())).append(' ').append(playerNumber(game.getWinner()))
+                .append(' ').append(game.getHistoryLength()).append(' ');
+        for (int s = 0; s < BitBoard.NUM_SQUARES; ++s) {
+            if (s == game.getKingSquare()) sb.append('K');
+            else if (!game.isOccupied(s)) sb.append('.');
+            else sb.append(game.isAttacker(s) ? 'A' : 'D');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops the server and closes its connections. The sessions are not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        if (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (SelectionKey key : selector.keys()) key.channel().close();
+        selector.close();
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * <br>Usage: {@code GameServer [port] [idle seconds]}
+     * @param args optional port (default {@value #DEFAULT_PORT}) and time without requests after which a game is
+     * evicted, in seconds (default 600, 0 to keep games until they are ended)
+     * @throws IOException if the port can't be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long idleSeconds = args.length > 1 ? Long.parseLong(args[1]) : 600;
+        GameServer server = new GameServer(port, new GameSessions(), TimeUnit.SECONDS.toNanos(idleSeconds));
+        server.start();
+        System.out.println("Serving games on port " + server.port());
+    }
+}
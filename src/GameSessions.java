@@ -0,0 +1,196 @@
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class manages live games by ID: it creates games, runs actions on them and evicts them.
+ * <p>Each game is held by a session, whose actions run one at a time in the order they were submitted. Sessions share
+ * no lock: the pending actions of a session wait in its own {@link SerialExecutor}, which is drained by at most one
+ * virtual thread at a time. So the actions of different sessions run concurrently, while each session's {@link GameLogic} is only used by
+ * one thread at a time.</p>
+ * <p>Games don't log their statistics, since they are not played on the console.</p>
+ */
+public class GameSessions implements AutoCloseable {
+    /**
+     * The default maximal number of live sessions.
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger count = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxSessions;
+
+    /**
+     * This class represents a live game and the queue of actions waiting to run on it.
+     */
+    private final class Session {
+        private static final int EVICTED = 1 << 30;     // flag of state, set once the session is evicted
+
+        private final GameLogic game = new GameLogic();
+        private final SerialExecutor actions = new SerialExecutor(executor);
+        // the number of submitted actions that haven't completed, with EVICTED set once the session is evicted
+        private final AtomicInteger state = new AtomicInteger();
+        private volatile long lastUsed = System.nanoTime();
+
+        private Session() {
+            game.setLoggingEnabled(false);
+        }
+
+        /**
+         * Queues an action, unless the session has been evicted.
+         * @return false if the session has been evicted, in which case the action is not queued
+         */
+        private boolean submit(Runnable action) {
+            int s;
+            do {
+                s = state.get();
+                if ((s & EVICTED) != 0) return false;
+            } while (!state.compareAndSet(s, s + 1));
+            lastUsed = System.nanoTime();
+            try {
+                actions.execute(() -> {
+                    try {
+                        action.run();
+                    } finally {
+                        state.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                state.decrementAndGet();
+                throw e;
+            }
+            return true;
+        }
+
+        // marks the session evicted, so later actions fail; actions already submitted still run
+        private void evict() {
+            state.getAndUpdate(s -> s | EVICTED);
+        }
+
+        // marks the session evicted if it has no actions that haven't completed
+        private boolean evictIfIdle() {
+            return state.compareAndSet(0, EVICTED);
+        }
+    }
+
+    /**
+     * Constructs a session manager holding up to {@link #DEFAULT_MAX_SESSIONS} sessions.
+     */
+    public GameSessions() {
+        this(DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * Constructs a session manager.
+     * @param maxSessions the maximal number of live sessions
+     */
+    public GameSessions(int maxSessions) {
+        if (maxSessions <= 0) throw new IllegalArgumentException("Maximal number of sessions must be positive");
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Creates a session with a new game in its initial state.
+     * @return the ID of the session
+     * @throws IllegalStateException if the maximal number of sessions are live
+     */
+    public long create() {
+        if (count.incrementAndGet() > maxSessions) {
+            count.decrementAndGet();
+            throw new IllegalStateException("Too many sessions");
+        }
+        long id = nextId.getAndIncrement();
+        sessions.put(id, new Session());
+        return id;
+    }
+
+    /**
+     * Runs an action on the game of a session, after the actions submitted to the session before it.
+     * <br>The action must not keep the game after it returns, since the game is then used by other threads.
+     * @param id the ID of the session
+     * @param action the action, whose result completes the returned future
+     * @param <T> the type of the result of the action
+     * @return a future completed by the result of the action or by its exception, or failed with a
+     * {@link NoSuchElementException} if there is no live session with the ID
+     */
+    public <T> CompletableFuture<T> submit(long id, Function<GameLogic, T> action) {
+        Session session = sessions.get(id);
+        if (session == null) return CompletableFuture.failedFuture(new NoSuchElementException("Unknown game: " + id));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            boolean live = session.submit(() -> {
+                try {
+                    result.complete(action.apply(session.game));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);    // keep draining the session's queue
+                }
+            });
+            if (!live) result.completeExceptionally(new NoSuchElementException("Unknown game: " + id));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IllegalStateException("Session manager is closed", e));
+        }
+        return result;
+    }
+
+    /**
+     * Evicts a session. Actions already submitted to it still run, later ones fail.
+     * @param id the ID of the session
+     * @return true if the session was live
+     */
+    public boolean evict(long id) {
+        Session session = sessions.remove(id);
+        if (session == null) return false;
+        session.evict();
+        count.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Evicts the sessions that had no action submitted for a while and have none waiting to run.
+     * <br>A session is only evicted if no action is submitted to it at the same time, so an action either runs before
+     * the eviction or fails with a {@link NoSuchElementException}.
+     * @param idleNanos the time since the last submitted action after which a session is evicted, in nanoseconds
+     * @return the number of evicted sessions
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (now - session.lastUsed > idleNanos && session.evictIfIdle()
+                    && sessions.remove(entry.getKey(), session)) {
+                count.decrementAndGet();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the number of live sessions.
+     * @return the number of live sessions
+     */
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * Evicts all the sessions and stops running actions. Actions submitted afterwards fail.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (Session session : sessions.values()) session.evict();
+        sessions.clear();
+        count.set(0);
+    }
+}
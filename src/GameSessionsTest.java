@@ -0,0 +1,274 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSessionsTest {
+    private static Throwable failureOf(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            fail("Action didn't complete");
+        }
+        return fail("Action didn't fail");
+    }
+
+    @Test
+    void testActionsOfSessionRunInOrder() throws Exception {
+        try (GameSessions sessions = new GameSessions()) {
+            long id = sessions.create();
+            List<Integer> order = new ArrayList<>();    // only used by the session's actions, one at a time
+            AtomicInteger running = new AtomicInteger();
+            AtomicBoolean overlapped = new AtomicBoolean(false);
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; ++i) {
+                int n = i;
+                results.add(sessions.submit(id, game -> {
+                    if (running.incrementAndGet() != 1) overlapped.set(true);
+                    order.add(n);
+                    running.decrementAndGet();
+                    return n;
+                }));
+            }
+            for (int i = 0; i < results.size(); ++i) assertEquals(i, results.get(i).get(10, TimeUnit.SECONDS));
+            for (int i = 0; i < order.size(); ++i) assertEquals(i, order.get(i));
+            assertFalse(overlapped.get(), "actions of a session ran concurrently");
+        }
+    }
+
+    @Test
+    void testSessionsRunConcurrently() throws Exception {
+        try (GameSessions sessions = new GameSessions()) {
+            long first = sessions.create();
+            long second = sessions.create();
+            CountDownLatch released = new CountDownLatch(1);
+            // the first session waits for the second, which only runs if sessions don't wait for each other
+            CompletableFuture<Boolean> waiting = sessions.submit(first, game -> {
+                try {
+                    return released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+            sessions.submit(second, game -> {
+                released.countDown();
+                return null;
+            }).get(10, TimeUnit.SECONDS);
+            assertTrue(waiting.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testActionsSeeTheirSessionsGame() throws Exception {
+        try (GameSessions sessions = new GameSessions()) {
+            long first = sessions.create();
+            long second = sessions.create();
+            int[] moves = new int[GameLogic.MAX_MOVES];
+            GameLogic mirror = new GameLogic();
+            mirror.generateMoves(mirror.getCurrentPlayer(), moves);
+            Position src = Position.of(Move.from(moves[0]));
+            Position dst = Position.of(Move.to(moves[0]));
+            assertTrue(sessions.submit(first, game -> game.move(src, dst)).get(10, TimeUnit.SECONDS));
+            assertEquals(1, sessions.submit(first, GameLogic::getHistoryLength).get(10, TimeUnit.SECONDS));
+            assertEquals(0, sessions.submit(second, GameLogic::getHistoryLength).get(10, TimeUnit.SECONDS));
+            // a failing action fails its own future only
+            CompletableFuture<Integer> failing = sessions.submit(first, game -> Integer.parseInt("x"));
+            assertInstanceOf(NumberFormatException.class, failureOf(failing));
+            assertEquals(1, sessions.submit(first, GameLogic::getHistoryLength).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testEvictedSessionFails() throws Exception {
+        try (GameSessions sessions = new GameSessions()) {
+            long id = sessions.create();
+            assertEquals(1, sessions.size());
+            assertTrue(sessions.evict(id));
+            assertFalse(sessions.evict(id));
+            assertEquals(0, sessions.size());
+            assertInstanceOf(NoSuchElementException.class, failureOf(sessions.submit(id, game -> null)));
+            assertInstanceOf(NoSuchElementException.class, failureOf(sessions.submit(12345, game -> null)));
+        }
+    }
+
+    @Test
+    void testEvictIdle() throws Exception {
+        try (GameSessions sessions = new GameSessions()) {
+            long idle = sessions.create();
+            long busy = sessions.create();
+            CountDownLatch released = new CountDownLatch(1);
+            CompletableFuture<Boolean> running = sessions.submit(busy, game -> {
+                try {
+                    return released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+            Thread.sleep(5);
+            assertEquals(0, sessions.evictIdle(TimeUnit.HOURS.toNanos(1)));
+            assertEquals(1, sessions.evictIdle(0));     // the busy session has an action that hasn't completed
+            assertEquals(1, sessions.size());
+            assertInstanceOf(NoSuchElementException.class, failureOf(sessions.submit(idle, game -> null)));
+            released.countDown();
+            assertTrue(running.get(10, TimeUnit.SECONDS));
+            Thread.sleep(5);
+            assertEquals(1, sessions.evictIdle(0));
+            assertEquals(0, sessions.size());
+            assertInstanceOf(NoSuchElementException.class, failureOf(sessions.submit(busy, game -> null)));
+        }
+    }
+
+    @Test
+    void testEvictIdleRacingSubmit() throws Exception {
+        try (GameSessions sessions = new GameSessions()) {
+            for (int round = 0; round < 2000; ++round) {
+                long id = sessions.create();
+                CountDownLatch start = new CountDownLatch(1);
+                Thread evictor = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    sessions.evictIdle(0);
+                });
+                evictor.start();
+                start.countDown();
+                // an action that runs must run on a live session, since a session with pending actions isn't idle
+                CompletableFuture<Integer> live = sessions.submit(id, game -> sessions.size());
+                evictor.join();
+                try {
+                    assertEquals(1, live.get(10, TimeUnit.SECONDS), "action ran on an evicted game in round " + round);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(NoSuchElementException.class, e.getCause());
+                }
+                sessions.evict(id);
+                assertEquals(0, sessions.size());
+            }
+        }
+    }
+
+    @Test
+    void testSessionLimit() {
+        try (GameSessions sessions = new GameSessions(2)) {
+            long first = sessions.create();
+            sessions.create();
+            assertThrows(IllegalStateException.class, sessions::create);
+            assertEquals(2, sessions.size());
+            sessions.evict(first);
+            sessions.create();
+            assertEquals(2, sessions.size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new GameSessions(0));
+    }
+
+    @Test
+    void testClosedSessionsFail() throws Exception {
+        GameSessions sessions = new GameSessions();
+        long id = sessions.create();
+        sessions.close();
+        assertEquals(0, sessions.size());
+        assertInstanceOf(NoSuchElementException.class, failureOf(sessions.submit(id, game -> null)));
+        long late = sessions.create();
+        assertInstanceOf(IllegalStateException.class, failureOf(sessions.submit(late, game -> null)));
+    }
+
+    @Test
+    void testServerAnswersPipelinedRequestsInOrder() throws IOException {
+        try (GameSessions sessions = new GameSessions();
+             GameServer server = new GameServer(0, sessions);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port())) {
+            server.start();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            out.write("NEW\nNEW\n");
+            out.flush();
+            String[] created = { in.readLine(), in.readLine() };
+            assertTrue(created[0].startsWith("OK ") && created[1].startsWith("OK "));
+            long first = Long.parseLong(created[0].substring(3));
+            long second = Long.parseLong(created[1].substring(3));
+            assertNotEquals(first, second);
+
+            GameLogic mirror = new GameLogic();
+            mirror.setLoggingEnabled(false);
+            int[] moves = new int[GameLogic.MAX_MOVES];
+            mirror.generateMoves(mirror.getCurrentPlayer(), moves);
+            int from = Move.from(moves[0]), to = Move.to(moves[0]);
+            String move = (from % GameLogic.BOARD_SIZE) + " " + (from / GameLogic.BOARD_SIZE) + " "
+                    + (to % GameLogic.BOARD_SIZE) + " " + (to / GameLogic.BOARD_SIZE);
+            String initial = GameServer.stateOf(mirror);
+            mirror.move(mirror.getPosition(from), mirror.getPosition(to));
+
+            // all the requests are sent at once, and every response must match its request
+            out.write("MOVE " + first + " " + move + "\n"
+                    + "MOVE " + first + " " + move + "\n"           // the piece has moved, so its square is empty
+                    + "STATE " + first + "\n"
+                    + "STATE " + second + "\n"
+                    + "MOVE " + second + " 11 0 3 0\n"              // outside the board
+                    + "MOVE " + second + " 3 0\n"                   // missing coordinates
+                    + "UNDO " + first + "\n"
+                    + "STATE " + first + "\n"
+                    + "RESET " + second + "\n"
+                    + "STATE 999999\n"                              // unknown game
+                    + "MOVE x 3 0 3 4\n"                            // bad ID
+                    + "JUMP " + first + "\n"                        // unknown request
+                    + "END " + first + "\n"
+                    + "STATE " + first + "\n"                       // ended game
+                    + "END " + second + "\n");
+            out.flush();
+            assertEquals("OK 0", in.readLine());
+            assertEquals("ILLEGAL", in.readLine());
+            assertEquals("OK " + GameServer.stateOf(mirror), in.readLine());
+            assertEquals("OK " + initial, in.readLine());
+            assertTrue(in.readLine().startsWith("ERR "));
+            assertTrue(in.readLine().startsWith("ERR "));
+            assertEquals("OK", in.readLine());
+            assertEquals("OK " + initial, in.readLine());
+            assertEquals("OK", in.readLine());
+            assertEquals("ERR Unknown game: 999999", in.readLine());
+            assertTrue(in.readLine().startsWith("ERR "));
+            assertEquals("ERR Unknown request: JUMP", in.readLine());
+            assertEquals("OK", in.readLine());
+            assertEquals("ERR Unknown game: " + first, in.readLine());
+            assertEquals("OK", in.readLine());
+            assertEquals(0, sessions.size());
+        }
+    }
+
+    @Test
+    void testServerClosesConnectionOnLongLine() throws IOException {
+        try (GameSessions sessions = new GameSessions();
+             GameServer server = new GameServer(0, sessions);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port())) {
+            server.start();
+            socket.setSoTimeout(10_000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            out.write("STATE " + " ".repeat(250) + "1\n");   // a line of exactly 257 characters
+            out.flush();
+            assertNull(in.readLine());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.PrintStream;
+
+/**
+ * The LogSink interface defines a destination for the text produced by {@link GameLogger}.
+ * <br>The logger writes the whole log of a game in a single {@link #write} call, so a sink shared by several games (e.g.
+ * on different threads) never interleaves their logs as long as its {@code write} is atomic.
+ */
+public interface LogSink extends AutoCloseable {
+    /**
+     * Writes text to the sink.
+     * @param text the text to write
+     */
+    void write(String text);
+
+    /**
+     * Flushes any text buffered by the sink to its destination.
+     */
+    default void flush() { }
+
+    /**
+     * Flushes the sink and releases its resources. The sink must not be written to after it is closed.
+     */
+    @Override
+    default void close() {
+        flush();
+    }
+
+    /**
+     * Returns a sink that prints to {@code System.out}, which is looked up on every write so that redirecting it (e.g.
+     * by a test) also redirects the sink.
+     * @return the console sink
+     */
+    static LogSink console() {
+        return new LogSink() {
+            @Override
+            public void write(String text) {
+                System.out.print(text);
+            }
+
+            @Override
+            public void flush() {
+                System.out.flush();
+            }
+        };
+    }
+
+    /**
+     * Returns a sink that prints to a given stream.
+     * @param out the stream to print to, which is not closed by the sink
+     * @return the stream sink
+     */
+    static LogSink of(PrintStream out) {
+        return new LogSink() {
+            @Override
+            public void write(String text) {
+                out.print(text);
+            }
+
+            @Override
+            public void flush() {
+                out.flush();
+            }
+        };
+    }
+}
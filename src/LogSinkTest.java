@@ -0,0 +1,177 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSinkTest {
+    /**
+     * The Contents interface defines a way to read back the text that reached a sink's destination.
+     */
+    private interface Contents {
+        String get() throws IOException;
+    }
+
+    private record SinkTarget(LogSink sink, Contents contents) { }
+
+    /**
+     * The SinkFactory interface defines a named way to create a sink under test in a temporary directory.
+     */
+    private interface SinkFactory {
+        SinkTarget create(Path dir) throws IOException;
+    }
+
+    private record NamedFactory(String name, SinkFactory factory) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static Stream<NamedFactory> sinks() {
+        return Stream.of(
+                new NamedFactory("memory", dir -> {
+                    MemoryLogSink sink = new MemoryLogSink();
+                    return new SinkTarget(sink, sink::contents);
+                }),
+                new NamedFactory("stream", dir -> {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    return new SinkTarget(LogSink.of(new PrintStream(bytes, false, StandardCharsets.UTF_8)),
+                            () -> bytes.toString(StandardCharsets.UTF_8));
+                }),
+                new NamedFactory("writer", dir -> {
+                    StringWriter writer = new StringWriter();
+                    return new SinkTarget(new WriterLogSink(writer, 64), writer::toString);
+                }),
+                new NamedFactory("channel", dir -> {
+                    Path path = dir.resolve("log.txt");
+                    return new SinkTarget(ChannelLogSink.open(path), () -> Files.readString(path));
+                }),
+                new NamedFactory("async", dir -> {
+                    MemoryLogSink sink = new MemoryLogSink();
+                    return new SinkTarget(new AsyncLogSink(sink, 2), sink::contents);
+                }),
+                new NamedFactory("async channel", dir -> {
+                    Path path = dir.resolve("log.txt");
+                    return new SinkTarget(new AsyncLogSink(ChannelLogSink.open(path)), () -> Files.readString(path));
+                }));
+    }
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @MethodSource("sinks")
+    void testFixtureLogs(NamedFactory factory) throws IOException {
+        File[] inputs = new File("src/test/resources/inputs").listFiles(File::isFile);
+        assertNotNull(inputs, "No input files found");
+        for (File input : inputs) {
+            SinkTarget target = factory.factory().create(dir);
+            GameLogic game = new GameLogic();
+            game.setLogSink(target.sink());
+            for (int move : Move.parseList(Files.readString(input.toPath())))
+                assertTrue(game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move))));
+            target.sink().close();
+            File output = new File("src/test/resources/outputs", input.getName().replace("input", "output"));
+            String expected = String.join("\n", Files.readAllLines(output.toPath())) + "\n";
+            assertEquals(expected, target.contents().get().replace("\r", ""), input.getName());
+            Files.deleteIfExists(dir.resolve("log.txt"));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("sinks")
+    void testFlushWritesEarlierText(NamedFactory factory) throws IOException {
+        SinkTarget target = factory.factory().create(dir);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            String line = "line " + i + "\n";
+            target.sink().write(line);
+            expected.append(line);
+            if (i % 50 == 49) {
+                target.sink().flush();
+                assertEquals(expected.toString(), target.contents().get());
+            }
+        }
+        target.sink().close();
+        assertEquals(expected.toString(), target.contents().get());
+    }
+
+    @Test
+    void testAsyncFlushWaitsForSlowTarget() {
+        MemoryLogSink memory = new MemoryLogSink();
+        LogSink slow = new LogSink() {
+            @Override
+            public void write(String text) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                memory.write(text);
+            }
+        };
+        try (AsyncLogSink sink = new AsyncLogSink(slow, 4)) {
+            for (int i = 0; i < 20; ++i) sink.write("x");
+            sink.flush();
+            assertEquals("x".repeat(20), memory.contents());
+        }
+    }
+
+    @Test
+    void testWritesRacingCloseAreRejectedOrWritten() throws InterruptedException {
+        for (int round = 0; round < 300; ++round) {
+            MemoryLogSink memory = new MemoryLogSink();
+            AsyncLogSink sink = new AsyncLogSink(memory, 4);
+            AtomicLong written = new AtomicLong();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; ++t) {
+                int id = t;
+                Thread writer = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 50; ++i) {
+                            if ((i + id) % 5 == 0) {
+                                sink.flush();
+                            } else {
+                                sink.write("x");
+                                written.incrementAndGet();
+                            }
+                        }
+                    } catch (IllegalStateException e) {
+                        // the sink was closed, so every later write would be rejected too
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            start.countDown();
+            Thread.sleep(0, round % 10 * 10_000);
+            sink.close();
+            for (Thread writer : writers) {
+                writer.join(5000);
+                assertFalse(writer.isAlive(), "a writer hung in round " + round);
+            }
+            assertEquals(written.get(), memory.contents().length(), "writes were lost in round " + round);
+            assertThrows(IllegalStateException.class, () -> sink.write("x"));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * This class represents a log sink that collects the text written to it in memory.
+ * <br>The sink is thread-safe.
+ */
+public class MemoryLogSink implements LogSink {
+    private final StringBuilder text = new StringBuilder();
+
+    @Override
+    public synchronized void write(String text) {
+        this.text.append(text);
+    }
+
+    /**
+     * Returns all the text written to the sink since it was created or last cleared.
+     * @return the collected text
+     */
+    public synchronized String contents() {
+        return text.toString();
+    }
+
+    /**
+     * Discards all the collected text.
+     */
+    public synchronized void clear() {
+        text.setLength(0);
+    }
+}
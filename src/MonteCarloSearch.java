@@ -0,0 +1,305 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a computer player that uses Monte Carlo Tree Search with the UCT selection rule.
+ * <p>A number of worker threads grow a single shared tree. Each worker has its own copy of the board (see
+ * {@link GameLogic#copyForSearch()}), descends the tree with {@link GameLogic#makeMove}, plays a random game to its end
+ * and reverts everything with {@link GameLogic#unmakeMove}, so playouts never go through the logging of
+ * {@link GameLogic#move}. Nodes being explored by a worker carry a virtual loss, which steers the other workers to
+ * different parts of the tree.</p>
+ */
+public class MonteCarloSearch implements AutoCloseable {
+    /**
+     * The default exploration constant of the UCT rule.
+     */
+    public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+    /**
+     * A playout that reaches this many plies without a winner is scored as a draw.
+     */
+    public static final int MAX_PLAYOUT_PLIES = 400;
+
+    private static final int NO_WINNER = 0, ATTACKER_WINS = 1, DEFENDER_WINS = 2;
+
+    /**
+     * This record holds the outcome of a search by {@link MonteCarloSearch}.
+     * @param bestMove the most visited move of the root, in the encoding of {@link Move}, or {@link Move#NONE}
+     * @param winRate the rate of playouts through {@code bestMove} won by the player to move, draws count as half
+     * @param playouts the number of playouts performed
+     * @param nanos the time the search took, in nanoseconds
+     * @param pv the most visited line of moves, starting with {@code bestMove}
+     */
+    public record Result(int bestMove, double winRate, long playouts, long nanos, int[] pv) {
+        /**
+         * Returns the search speed.
+         * @return the number of playouts performed per second
+         */
+        public long playoutsPerSecond() {
+            return nanos == 0 ? 0 : playouts * 1_000_000_000L / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("win rate %.3f playouts %d pps %d time %dms pv", winRate, playouts,
+                    playoutsPerSecond(), nanos / 1_000_000));
+            for (int move : pv) sb.append(' ').append(Move.toString(move));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * This class represents a node of the search tree, reached by a move of {@code attackerMoved}'s player.
+     * <br>Statistics are updated atomically, while expansion is guarded by the node's lock.
+     */
+    private static final class Node {
+        private static final VarHandle VISITS, HALF_WINS, VIRTUAL_LOSSES;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                VISITS = lookup.findVarHandle(Node.class, "visits", int.class);
+                HALF_WINS = lookup.findVarHandle(Node.class, "halfWins", int.class);
+                VIRTUAL_LOSSES = lookup.findVarHandle(Node.class, "virtualLosses", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final int move;
+        final Node parent;
+        final boolean attackerMoved;
+        volatile int visits;
+        volatile int halfWins;      // 2 per win of the player that moved into this node, 1 per draw
+        volatile int virtualLosses;
+        volatile int winner = NO_WINNER;    // set if the game has ended in this node
+        int[] moves;                // the legal moves from this node, null until it is expanded
+        Node[] children;            // children[i] is reached by moves[i], the first `expanded` are created
+        int expanded;
+
+        Node(int move, Node parent, boolean attackerMoved) {
+            this.move = move;
+            this.parent = parent;
+            this.attackerMoved = attackerMoved;
+        }
+    }
+
+    private final int threads;
+    private final double exploration;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a searcher.
+     * @param threads the number of worker threads, at least 1
+     * @param exploration the exploration constant of the UCT rule, see {@link #DEFAULT_EXPLORATION}
+     * @throws IllegalArgumentException if {@code threads} is not positive
+     */
+    public MonteCarloSearch(int threads, double exploration) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        this.threads = threads;
+        this.exploration = exploration;
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Searches the current state of a game for the best move of the current player.
+     * <br>The game itself is only copied, never changed.
+     * @param game the game to search
+     * @param timeMillis the time budget of the search in milliseconds
+     * @return the result of the search
+     */
+    public Result search(GameLogic game, long timeMillis) {
+        return search(game, timeMillis, new AtomicBoolean(false));
+    }
+
+    /**
+     * Searches like {@link #search(GameLogic, long)}, stopping early if a signal is set.
+     * @param game the game to search
+     * @param timeMillis the time budget of the search in milliseconds
+     * @param stopSignal a signal that stops all the workers when set
+     * @return the result of the search
+     */
+    public Result search(GameLogic game, long timeMillis, AtomicBoolean stopSignal) {
+        long start = System.nanoTime();
+        long deadline = start + timeMillis * 1_000_000;
+        Node root = new Node(Move.NONE, null, !game.isSecondPlayerTurn());
+        LongAdder playouts = new LongAdder();
+        List<Future<?>> workers = new ArrayList<>(threads);
+        SplittableRandom seeds = new SplittableRandom();
+        for (int i = 0; i < threads; ++i) {
+            GameLogic board = game.copyForSearch();
+            SplittableRandom random = seeds.split();
+            workers.add(pool.submit(() -> {
+                int[] moves = new int[GameLogic.MAX_MOVES];
+                while (!stopSignal.get() && System.nanoTime() < deadline) {
+                    iterate(root, board, random, moves);
+                    playouts.increment();
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                stopSignal.set(true);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while searching", e);
+            } catch (ExecutionException e) {
+                stopSignal.set(true);
+                throw new RuntimeException("Search thread failed", e.getCause());
+            }
+        }
+
+        List<Integer> pv = new ArrayList<>();
+        double winRate = 0;
+        for (Node node = mostVisited(root); node != null; node = mostVisited(node)) {
+            if (pv.isEmpty()) winRate = node.visits == 0 ? 0 : node.halfWins / (2.0 * node.visits);
+            pv.add(node.move);
+        }
+        return new Result(pv.isEmpty() ? Move.NONE : pv.get(0), winRate, playouts.sum(), System.nanoTime() - start,
+                pv.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Performs one iteration of the search: selection, expansion, playout and backpropagation.
+     * <br>The board is back in the root state when this method returns.
+     */
+    private void iterate(Node root, GameLogic board, SplittableRandom random, int[] moves) {
+        Node node = root;
+        int plies = 0;
+        Node.VIRTUAL_LOSSES.getAndAdd(node, 1);
+        while (node.winner == NO_WINNER) {
+            Node next;
+            boolean created = false;
+            synchronized (node) {
+                if (node.moves == null) {
+                    int n = board.generateMoves(board.getCurrentPlayer(), moves);
+                    node.moves = Arrays.copyOf(moves, n);
+                    node.children = new Node[n];
+                }
+                if (node.moves.length == 0) {   // a player that can't move has lost
+                    node.winner = board.isSecondPlayerTurn() ? DEFENDER_WINS : ATTACKER_WINS;
+                    break;
+                }
+                if (node.expanded < node.moves.length) {
+                    // expand a random untried move, swapping it into the expanded part of the arrays
+                    int i = node.expanded + random.nextInt(node.moves.length - node.expanded);
+                    int move = node.moves[i];
+                    node.moves[i] = node.moves[node.expanded];
+                    node.moves[node.expanded] = move;
+                    // the move is made before the child is published, so other workers never see a finished game
+                    // without its winner
+                    next = new Node(move, node, board.isSecondPlayerTurn());
+                    board.makeMove(move);
+                    Player winner = board.getWinner();
+                    if (winner != null) next.winner = winner.isPlayerOne() ? DEFENDER_WINS : ATTACKER_WINS;
+                    node.children[node.expanded++] = next;
+                    created = true;
+                } else {
+                    next = select(node);
+                }
+            }
+            if (!created) board.makeMove(next.move);
+            plies++;
+            Node.VIRTUAL_LOSSES.getAndAdd(next, 1);
+            node = next;
+            if (created) break;
+        }
+
+        int winner = node.winner != NO_WINNER ? node.winner : playout(board, random, moves);
+        for (int i = 0; i < plies; ++i) board.unmakeMove();
+        for (Node n = node; n != null; n = n.parent) {
+            int halfWins = winner == NO_WINNER ? 1 : (winner == ATTACKER_WINS) == n.attackerMoved ? 2 : 0;
+            Node.HALF_WINS.getAndAdd(n, halfWins);
+            Node.VISITS.getAndAdd(n, 1);
+            Node.VIRTUAL_LOSSES.getAndAdd(n, -1);
+        }
+    }
+
+    /**
+     * Selects the child of a fully expanded node with the best UCT value, counting virtual losses as lost visits.
+     * <br>Must be called while holding the node's lock.
+     */
+    private Node select(Node node) {
+        double logVisits = Math.log(Math.max(1, node.visits + node.virtualLosses));
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node child : node.children) {
+            int visits = child.visits + child.virtualLosses;
+            double value = visits == 0 ? Double.POSITIVE_INFINITY
+                    : child.halfWins / (2.0 * visits) + exploration * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays random moves until the game ends, then reverts them.
+     * @return the winner of the playout, or {@link #NO_WINNER} if it reached {@link #MAX_PLAYOUT_PLIES}
+     */
+    private static int playout(GameLogic board, SplittableRandom random, int[] moves) {
+        int winner = NO_WINNER;
+        int plies = 0;
+        while (plies < MAX_PLAYOUT_PLIES) {
+            int n = board.generateMoves(board.getCurrentPlayer(), moves);
+            if (n == 0) {   // a player that can't move has lost
+                winner = board.isSecondPlayerTurn() ? DEFENDER_WINS : ATTACKER_WINS;
+                break;
+            }
+            board.makeMove(moves[random.nextInt(n)]);
+            plies++;
+            Player w = board.getWinner();
+            if (w != null) {
+                winner = w.isPlayerOne() ? DEFENDER_WINS : ATTACKER_WINS;
+                break;
+            }
+        }
+        for (int i = 0; i < plies; ++i) board.unmakeMove();
+        return winner;
+    }
+
+    private static Node mostVisited(Node node) {
+        Node best = null;
+        synchronized (node) {
+            for (int i = 0; i < node.expanded; ++i) {
+                if (best == null || node.children[i].visits > best.visits) best = node.children[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Stops the worker threads. Searches already running are completed first.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Searches the initial board state and prints the result, including the playout rate.
+     * <br>Usage: {@code MonteCarloSearch [threads] [millis] [exploration]}
+     * @param args optional number of threads (default all processors), time budget in milliseconds (default 5000) and
+     *             exploration constant (default {@link #DEFAULT_EXPLORATION})
+     */
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 5000;
+        double exploration = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_EXPLORATION;
+        try (MonteCarloSearch search = new MonteCarloSearch(threads, exploration)) {
+            System.out.println(threads + " thread(s): " + search.search(new GameLogic(), millis));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class holds the compact {@code int} encoding of moves used by the move generator and by search.
+ * <br>A move holds its source square (see {@link BitBoard#square}) in the low 8 bits and its destination square in the
+ * following 8 bits.
+ */
+public final class Move {
+    private static final Pattern POSITION = Pattern.compile("\\((\\d+), (\\d+)\\)");
+
+    /**
+     * A value that never encodes a legal move, since a move's source and destination always differ.
+     */
+    public static final int NONE = 0;
+
+    private Move() { }
+
+    /**
+     * Encodes a move.
+     * @param from the source square of the move
+     * @param to the destination square of the move
+     * @return the encoded move
+     */
+    public static int of(int from, int to) {
+        return from | (to << 8);
+    }
+
+    /**
+     * Returns the source square of an encoded move.
+     * @param move the encoded move
+     * @return the source square
+     */
+    public static int from(int move) {
+        return move & 0xFF;
+    }
+
+    /**
+     * Returns the destination square of an encoded move.
+     * @param move the encoded move
+     * @return the destination square
+     */
+    public static int to(int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    /**
+     * Returns a readable form of an encoded move, with the same position format used by the game's logs.
+     * @param move the encoded move
+     * @return the move in the format "(x, y)->(x, y)"
+     */
+    public static String toString(int move) {
+        int size = GameLogic.BOARD_SIZE;
+        return "(" + from(move) % size + ", " + from(move) / size + ")->(" + to(move) % size + ", " + to(move) / size
+                + ")";
+    }
+
+    /**
+     * Parses a text move list, as held by the inputs of {@code GameLogicTest}: the source and destination of each move
+     * as consecutive "(x, y)" positions, with anything between positions ignored.
+     * @param text the move list
+     * @return the encoded moves, in order
+     * @throws IllegalArgumentException if a position is outside the board or the last move has no destination
+     */
+    public static int[] parseList(CharSequence text) {
+        Matcher matcher = POSITION.matcher(text);
+        int[] squares = new int[64];
+        int n = 0;
+        while (matcher.find()) {
+            int x = Integer.parseInt(matcher.group(1));
+            int y = Integer.parseInt(matcher.group(2));
+            if (!Position.isInsideBoard(x, y)) throw new IllegalArgumentException("Position is outside the board");
+            if (n == squares.length) squares = Arrays.copyOf(squares, n * 2);
+            squares[n++] = BitBoard.square(x, y);
+        }
+        if (n % 2 != 0) throw new IllegalArgumentException("Move list ends with a source and no destination");
+        int[] moves = new int[n / 2];
+        for (int i = 0; i < moves.length; ++i) moves[i] = of(squares[2 * i], squares[2 * i + 1]);
+        return moves;
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * The MoveStrategy interface defines a way of choosing moves for a player, e.g. for automated games.
+ * <br>A strategy instance may keep state between calls, so it should only be used by one thread.
+ */
+public interface MoveStrategy {
+
+    /**
+     * Chooses a move for the current player of a game. The game must be in the same state when this method returns.
+     *
+     * @param game the game to choose a move in
+     * @return the chosen move, in the encoding of {@link Move}, or {@link Move#NONE} if the player has no legal move
+     */
+    int chooseMove(GameLogic game);
+}
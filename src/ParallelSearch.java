@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class represents a multi-threaded computer player, using the Lazy SMP scheme: a number of {@link SearchEngine}s
+ * search the same state at once, each on its own copy of the board (see {@link GameLogic#copyForSearch()}), and share
+ * their results through a single {@link TranspositionTable}.
+ * <p>Half of the helper threads start one iteration deeper than the main thread, so the threads spread over different
+ * parts of the tree. All the threads stop together, either on the deadline or when the main thread finishes.</p>
+ */
+public class ParallelSearch implements AutoCloseable {
+    private final int threads;
+    private final TranspositionTable table;
+    private final ExecutorService pool;
+
+    /**
+     * Constructs a parallel searcher.
+     * @param threads the number of search threads, at least 1
+     * @param tableMb the size of the shared transposition table in megabytes
+     * @throws IllegalArgumentException if {@code threads} is not positive
+     */
+    public ParallelSearch(int threads, int tableMb) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        this.threads = threads;
+        table = new TranspositionTable(tableMb);
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "search-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the transposition table shared by the search threads.
+     * @return the shared transposition table
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Searches the current state of a game for the best move of the current player, using all the search threads.
+     * <br>The game itself is only copied, never changed.
+     * @param game the game to search
+     * @param maxDepth the maximum depth to search to
+     * @param timeMillis the time budget of the search in milliseconds
+     * @return the result of the main thread, or of a helper that completed a deeper iteration; its node count is the
+     * total of all the threads
+     */
+    public SearchResult search(GameLogic game, int maxDepth, long timeMillis) {
+        return search(game, maxDepth, timeMillis, new AtomicBoolean(false));
+    }
+
+    /**
+     * Searches like {@link #search(GameLogic, int, long)}, stopping early if a signal is set.
+     * @param game the game to search
+     * @param maxDepth the maximum depth to search to
+     * @param timeMillis the time budget of the search in milliseconds
+     * @param stopSignal a signal that stops all the threads when set, it is also set when the search is done
+     * @return the result of the search
+     */
+    public SearchResult search(GameLogic game, int maxDepth, long timeMillis, AtomicBoolean stopSignal) {
+        long start = System.nanoTime();
+        List<Future<SearchResult>> futures = new ArrayList<>(threads);
+        table.newSearch();      // once for all the threads, so they store and compare entries under one generation
+        for (int i = 0; i < threads; ++i) {
+            SearchEngine engine = new SearchEngine(game.copyForSearch(), table);
+            engine.setNewSearchOnStart(false);
+            engine.setStopSignal(stopSignal);
+            engine.setStartDepth(1 + i % 2);
+            boolean main = i == 0;
+            futures.add(pool.submit(() -> {
+                SearchResult result = engine.search(maxDepth, timeMillis);
+                if (main) stopSignal.set(true);     // the helpers have nothing to add once the main thread is done
+                return result;
+            }));
+        }
+        SearchResult best = null;
+        long nodes = 0;
+        for (Future<SearchResult> future : futures) {
+            SearchResult result;
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                stopSignal.set(true);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while searching", e);
+            } catch (ExecutionException e) {
+                stopSignal.set(true);
+                throw new RuntimeException("Search thread failed", e.getCause());
+            }
+            nodes += result.nodes();
+            if (best == null || (result.depth() > best.depth() && result.bestMove() != Move.NONE)) best = result;
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, System.nanoTime() - start,
+                best.pv());
+    }
+
+    /**
+     * Stops the search threads. Searches already running are completed first.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Measures the speedup of parallel search over a single thread, by the time it takes to complete a fixed depth on a
+     * fixed set of positions, and prints a report.
+     * <br>The positions are reached by random moves from the initial board state, with a fixed seed.
+     * <br>Usage: {@code ParallelSearch [threads] [depth] [positions] [table MB]}
+     * @param args optional number of threads (default all processors), depth (default 6), number of positions
+     *             (default 8) and table size (default 256)
+     */
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int tableMb = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        List<GameLogic> positions = benchmarkPositions(count, new Random(42));
+
+        long[] nanos = new long[2];
+        long[] nodes = new long[2];
+        int[] threadCounts = { 1, threads };
+        for (int t = 0; t < 2; ++t) {
+            try (ParallelSearch search = new ParallelSearch(threadCounts[t], tableMb)) {
+                for (int i = 0; i < positions.size(); ++i) {
+                    search.getTable().clear();
+                    SearchResult result = search.search(positions.get(i), depth, Long.MAX_VALUE / 2_000_000);
+                    nanos[t] += result.nanos();
+                    nodes[t] += result.nodes();
+                    System.out.println(threadCounts[t] + " thread(s), position " + i + ": " + result);
+                }
+            }
+        }
+        for (int t = 0; t < 2; ++t) {
+            System.out.printf("%d thread(s): %d ms to depth %d, %d nodes/s%n", threadCounts[t], nanos[t] / 1_000_000,
+                    depth, nanos[t] == 0 ? 0 : nodes[t] * 1_000_000_000L / nanos[t]);
+        }
+        System.out.printf("time-to-depth speedup with %d threads: %.2f%n", threads, (double) nanos[0] / nanos[1]);
+    }
+
+    private static List<GameLogic> benchmarkPositions(int count, Random random) {
+        List<GameLogic> positions = new ArrayList<>(count);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        while (positions.size() < count) {
+            GameLogic game = new GameLogic();
+            int plies = 4 + random.nextInt(20);
+            for (int i = 0; i < plies && game.getWinner() == null; ++i) {
+                int n = game.generateMoves(game.getCurrentPlayer(), moves);
+                if (n == 0) break;
+                int move = moves[random.nextInt(n)];
+                game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move)));
+            }
+            if (game.getWinner() == null) positions.add(game);
+        }
+        return positions;
+    }
+}
@@ -36,6 +36,14 @@ public class Pawn extends ConcretePiece {
         captures += 1;
     }
 
+    /**
+     * Logs that the pawn has performed some captures.
+     * @param num number of captures that were performed
+     */
+    public void addCaptures(int num) {
+        captures += num;
+    }
+
     /**
      * Logs that the pawn has undone some captures.
      * @param num number of captures that were undone
@@ -44,6 +52,16 @@ public class Pawn extends ConcretePiece {
         captures -= num;
     }
 
+    /**
+     * Restarts the pawn for a new game, also clearing its captures.
+     * @param startPos initial position of the pawn, to be added to the move history
+     */
+    @Override
+    public void restart(Position startPos) {
+        super.restart(startPos);
+        captures = 0;
+    }
+
     /**
      * Returns the total number of captures this pawn has performed throughout the game.
      * @return total number of captures
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class counts the leaf nodes of the tree of legal moves to a fixed depth ("perft"), which measures the speed of
+ * move generation and catches any change to the legal moves and captures when the board representation is changed.
+ * <p>The tree is walked with {@link GameLogic#generateMoves}, {@link GameLogic#makeMove} and
+ * {@link GameLogic#unmakeMove}, which follow the rules of {@link GameLogic#move} exactly. A move that ends the game is a
+ * leaf and is not expanded further, and a player with no legal moves has no leaves below them.</p>
+ */
+public final class Perft {
+    private Perft() { }
+
+    /**
+     * This record holds the outcome of a perft run, broken down by the moves of the root ("divide").
+     * @param depth the depth of the run
+     * @param moves the legal moves of the root, in the encoding of {@link Move}
+     * @param counts {@code counts[i]} is the number of leaves below {@code moves[i]}
+     * @param nodes the total number of leaves
+     * @param nanos the time the run took, in nanoseconds
+     */
+    public record Result(int depth, int[] moves, long[] counts, long nodes, long nanos) {
+        /**
+         * Returns the speed of the run.
+         * @return the number of leaves counted per second
+         */
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : (long) (nodes * 1e9 / nanos);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < moves.length; ++i)
+                sb.append(Move.toString(moves[i])).append(": ").append(counts[i]).append(System.lineSeparator());
+            sb.append(String.format("depth %d nodes %d time %dms nps %d", depth, nodes, nanos / 1_000_000,
+                    nodesPerSecond()));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Counts the leaves of the tree of legal moves below the current state of a game.
+     * <br>The game itself is only copied, never changed.
+     * @param game the game whose state is the root of the tree
+     * @param depth the depth of the tree in moves, at least 0
+     * @return the number of leaves, which is 1 for depth 0 or a finished game
+     * @throws IllegalArgumentException if {@code depth} is negative
+     */
+    public static long perft(GameLogic game, int depth) {
+        if (depth < 0) throw new IllegalArgumentException("Depth must not be negative");
+        return count(game.copyForSearch(), depth, new int[depth][GameLogic.MAX_MOVES]);
+    }
+
+    /**
+     * Counts the leaves below each legal move of the current state of a game on the calling thread.
+     * @param game the game whose state is the root of the tree
+     * @param depth the depth of the tree in moves, at least 1
+     * @return the leaf counts of the root moves
+     * @throws IllegalArgumentException if {@code depth} is not positive
+     */
+    public static Result divide(GameLogic game, int depth) {
+        return divide(game, depth, 1);
+    }
+
+    /**
+     * Counts the leaves below each legal move of the current state of a game, splitting the root moves between a
+     * number of threads. Each thread searches its own copy of the board (see {@link GameLogic#copyForSearch()}).
+     * @param game the game whose state is the root of the tree
+     * @param depth the depth of the tree in moves, at least 1
+     * @param threads the number of threads, at least 1
+     * @return the leaf counts of the root moves
+     * @throws IllegalArgumentException if {@code depth} or {@code threads} are not positive
+     */
+    public static Result divide(GameLogic game, int depth, int threads) {
+        if (depth <= 0) throw new IllegalArgumentException("Depth must be positive");
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        long start = System.nanoTime();
+        if (game.getWinner() != null) return new Result(depth, new int[0], new long[0], 1, System.nanoTime() - start);
+        int[] buffer = new int[GameLogic.MAX_MOVES];
+        int n = game.generateMoves(game.getCurrentPlayer(), buffer);
+        int[] moves = Arrays.copyOf(buffer, n);
+        long[] counts = new long[n];
+        AtomicInteger nextMove = new AtomicInteger();
+        Runnable worker = () -> {
+            GameLogic board = game.copyForSearch();
+            int[][] buffers = new int[depth - 1][GameLogic.MAX_MOVES];
+            for (int i = nextMove.getAndIncrement(); i < n; i = nextMove.getAndIncrement()) {
+                board.makeMove(moves[i]);
+                counts[i] = board.getWinner() != null ? 1 : count(board, depth - 1, buffers);
+                board.unmakeMove();
+            }
+        };
+        if (threads == 1) {
+            worker.run();
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) workers.add(pool.submit(worker));
+            try {
+                for (Future<?> f : workers) f.get();   // also publishes the counts written by the workers
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while counting", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Perft thread failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        long nodes = 0;
+        for (long count : counts) nodes += count;
+        return new Result(depth, moves, counts, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the leaves below the current state of a board, leaving the board as it was.
+     * @param buffers a move buffer for each remaining ply, {@code buffers[depth - 1]} is used by this call
+     */
+    private static long count(GameLogic board, int depth, int[][] buffers) {
+        if (depth == 0 || board.getWinner() != null) return 1;
+        int[] moves = buffers[depth - 1];
+        int n = board.generateMoves(board.getCurrentPlayer(), moves);
+        if (depth == 1) return n;   // every move is a leaf, whether or not it ends the game
+        long nodes = 0;
+        for (int i = 0; i < n; ++i) {
+            board.makeMove(moves[i]);
+            nodes += count(board, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft on a board and prints the leaf count of each root move, the total and the speed.
+     * <br>Usage: {@code Perft [depth] [threads] [board resource]}
+     * @param args optional depth (default 3), number of threads (default all processors) and resource to load the
+     *             board from (default {@link GameLogic#INITIAL_BOARD_RESOURCE})
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String resource = args.length > 2 ? args[2] : GameLogic.INITIAL_BOARD_RESOURCE;
+        System.out.println(divide(new GameLogic(resource), depth, threads));
+    }
+}
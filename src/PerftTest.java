@@ -0,0 +1,25 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+    // leaf counts of the initial board, matching a brute-force count over every move GameLogic.move() accepts
+    @ParameterizedTest
+    @CsvSource({ "0, 1", "1, 116", "2, 6788", "3, 809008" })
+    void testInitialBoard(int depth, long nodes) {
+        assertEquals(nodes, Perft.perft(new GameLogic(), depth));
+    }
+
+    @Test
+    void testDivideMatchesPerft() {
+        GameLogic game = new GameLogic();
+        Perft.Result single = Perft.divide(game, 3);
+        Perft.Result split = Perft.divide(game, 3, 4);
+        assertEquals(Perft.perft(game, 3), single.nodes());
+        assertArrayEquals(single.moves(), split.moves());
+        assertArrayEquals(single.counts(), split.counts());
+        assertEquals(single.nodes(), split.nodes());
+    }
+}
@@ -1,17 +1,21 @@
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * This class represents a valid position on the board, mainly x and y coordinates.
- * This class also holds the history of the pieces that stepped here for logging purposes.
+ * <br>Positions are immutable values, the statistics of the pieces that stepped on them are kept by each game (see
+ * {@link StepCounter}). A single canonical instance of each position is shared by all games, see {@link #of}.
  */
 public final class Position {
     private static final int BOARD_SIZE = GameLogic.BOARD_SIZE;
+    private static final Position[] TABLE = new Position[BOARD_SIZE * BOARD_SIZE];    // indexed by index()
     private final int x;
     private final int y;
-    // count of how many times each piece stepped here, piece that never stepped here should be absent from the map
-    private final Map<Piece, Integer> steppedHere = new HashMap<>();
+
+    static {
+        for (int y = 0; y < BOARD_SIZE; ++y) {
+            for (int x = 0; x < BOARD_SIZE; ++x) {
+                TABLE[BitBoard.square(x, y)] = new Position(x, y);
+            }
+        }
+    }
 
     /**
      * Checks if an (x, y) pair represents a coordinate inside the board.
@@ -41,6 +45,28 @@ public final class Position {
         y = newY;
     }
 
+    /**
+     * Returns the canonical instance of a position, which is looked up without allocating.
+     * @param x x coordinate of the required {@code Position}
+     * @param y y coordinate of the required {@code Position}
+     * @return the position of the coordinates
+     * @throws IllegalArgumentException if either coordinate is negative or bigger than the board's size
+     */
+    public static Position of(int x, int y) {
+        if (!isInsideBoard(x, y)) return new Position(x, y);    // throws the constructor's exception
+        return TABLE[BitBoard.square(x, y)];
+    }
+
+    /**
+     * Returns the canonical instance of the position of a square.
+     * @param index the index of the square, see {@link #index()}
+     * @return the position of the square
+     * @throws IndexOutOfBoundsException if {@code index} is not the index of a square
+     */
+    public static Position of(int index) {
+        return TABLE[index];
+    }
+
     /**
      * Compute the absolute distance between two points that lie on an axis-parallel line (arguments are commutative).
      * <br>If either parameters in {@code null}, returns 0, this is for fault-proofing total move distance calculations.
@@ -72,6 +98,14 @@ public final class Position {
         return y;
     }
 
+    /**
+     * Gets the index of the position's square, see {@link BitBoard#square}.
+     * @return a unique number for each possible position in the board, between 0 and {@code BOARD_SIZE * BOARD_SIZE}
+     */
+    public int index() {
+        return BitBoard.square(x, y);
+    }
+
     /**
      * Override of {@code Object::hashCode} to reflect the fact that {@code x} and {@code y} have limited ranges.
      * <p>This method allows {@code HashTable}s, {@code HashMap}s, and {@code HashSet}s
@@ -80,7 +114,7 @@ public final class Position {
      */
     @Override
     public int hashCode() {
-        return x + y * BOARD_SIZE;
+        return index();
     }
 
     /**
@@ -103,50 +137,8 @@ public final class Position {
         return x % (BOARD_SIZE - 1) == 0 && y % (BOARD_SIZE - 1) == 0;
     }
 
-    /**
-     * Records that a piece stepped on this position, for logging purposes.
-     * @param stepped the piece that stepped here
-     */
-    public void stepHere(Piece stepped) {
-        steppedHere.compute(stepped, (cp, i) -> i == null ? 1 : i + 1);
-    }
-
-    /**
-     * Returns the number of distinct {@code Piece}s that stepped here.
-     * @return number of distinct {@code Piece}s that stepped on this {@code Position}
-     */
-    public int getSteppedCount() {
-        return steppedHere.size();
-    }
-
-    /**
-     * Undoes a step and removes the step from the history.
-     * @param stepper the {@code Piece} to undo a step for
-     * @throws RuntimeException if {@code stepper} never stepped here
-     */
-    public void undoStep(Piece stepper) {
-        steppedHere.compute(stepper, (p, i) -> {
-            if (i == null) throw new RuntimeException("Tried to undo step of piece that never stepped here");
-            if (i <= 1) return null;
-            return i - 1;
-        });
-    }
-
     public String toString() {
         return "(" + x + ", " + y + ")";
     }
 
-    /**
-     * A comparator that compares two positions according to the following rules:
-     * <br>First, by number of unique pieces stepped on, in reverse order.
-     * <br>If they are equal, by x values.
-     * <br>If they are equal, by y values.
-     */
-    public static final Comparator<Position> steppedComp = (p1, p2) -> {
-        int sComp = Integer.compare(p2.getSteppedCount(), p1.getSteppedCount());
-        if (sComp != 0) return sComp;
-        int xComp = Integer.compare(p1.x(), p2.x());
-        if (xComp != 0) return xComp;
-        return Integer.compare(p1.y(), p2.y());
-    };
 }
@@ -0,0 +1,231 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+/**
+ * This class replays recorded games in parallel and verifies them, to check rule changes against a large set of games.
+ * <p>Each thread replays games on its own {@link GameLogic}, logging into its own {@link MemoryLogSink}, so the game-end
+ * statistics of each game are captured without redirecting {@code System.out}. Games are verified in one of two ways:
+ * <br>A directory of move lists is checked against a directory of expected logs, laid out like the resources of
+ * {@code GameLogicTest}: every move must be legal and the log must match the expected output exactly.
+ * <br>A {@link GameArchive} is checked against itself: every move must be legal and the game must end with the
+ * recorded winner.</p>
+ */
+public final class ReplayVerifier {
+    private ReplayVerifier() { }
+
+    /**
+     * This record describes a game that failed verification.
+     * @param index the index of the game, in the order the games are listed
+     * @param game the name of the game
+     * @param detail a description of the first difference from the expected replay
+     */
+    public record Divergence(long index, String game, String detail) {
+        @Override
+        public String toString() {
+            return game + ": " + detail;
+        }
+    }
+
+    /**
+     * This record holds the outcome of a verification.
+     * @param games the number of games verified
+     * @param failures the number of games that failed verification
+     * @param nanos the time the verification took, in nanoseconds
+     * @param first the failed game that is listed first, or {@code null} if all the games passed
+     */
+    public record Report(long games, long failures, long nanos, Divergence first) {
+        /**
+         * Returns the verification speed.
+         * @return the number of games verified per second
+         */
+        public double gamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games, %d failed, %.2fs (%.0f games/s)", games, failures, nanos / 1e9,
+                    gamesPerSecond()) + (first == null ? "" : System.lineSeparator() + "first divergence: " + first);
+        }
+    }
+
+    /**
+     * The GameCheck interface defines the verification of a single game by index.
+     */
+    private interface GameCheck {
+        /**
+         * Replays and verifies a game.
+         * @param index the index of the game
+         * @param game a game logic in its initial state, logging into {@code log}
+         * @param log an empty sink holding the game's log
+         * @return a description of the first difference, or {@code null} if the game passed
+         */
+        String verify(long index, GameLogic game, MemoryLogSink log);
+    }
+
+    /**
+     * Verifies every move list of a directory against the expected log of the game.
+     * <br>The expected log of an input file is the file of the outputs directory with the same name, where "input" is
+     * replaced by "output" (e.g. "input1.txt" and "output1.txt"). Line endings are ignored.
+     * @param inputs the directory of move lists, see {@link Move#parseList}
+     * @param outputs the directory of expected logs
+     * @param threads the number of threads
+     * @return the report of the verification
+     * @throws IOException if a directory can't be listed
+     */
+    public static Report verifyDirectory(Path inputs, Path outputs, int threads) throws IOException {
+        File[] files = inputs.toFile().listFiles(File::isFile);
+        if (files == null) throw new IOException("Cannot list directory: " + inputs);
+        Arrays.sort(files);
+        return run(files.length, threads, i -> files[(int) i].getName(), (i, game, log) -> {
+            try {
+                int[] moves = Move.parseList(Files.readString(files[(int) i].toPath()));
+                Path expectedPath = outputs.resolve(files[(int) i].getName().replace("input", "output"));
+                if (!Files.exists(expectedPath)) return "expected output not found: " + expectedPath;
+                String illegal = replay(game, moves);
+                if (illegal != null) return illegal;
+                return firstDifference(normalize(Files.readString(expectedPath)), normalize(log.contents()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Verifies every game of an archive: all its moves must be legal and it must end with the recorded winner.
+     * @param archive the archive to verify
+     * @param threads the number of threads
+     * @return the report of the verification
+     */
+    public static Report verifyArchive(GameArchive archive, int threads) {
+        return run(archive.size(), threads, i -> "game " + i, (i, game, log) -> {
+            GameArchive.GameRecord record = archive.game(i);
+            int[] moves = new int[record.moveCount()];
+            for (int m = 0; m < moves.length; ++m) moves[m] = record.move(m);
+            String illegal = replay(game, moves);
+            if (illegal != null) return illegal;
+            Player winner = game.getWinner();
+            int code = winner == null ? GameArchive.NO_WINNER
+                    : winner.isPlayerOne() ? GameArchive.DEFENDER_WINS : GameArchive.ATTACKER_WINS;
+            if (code != record.winner()) return "winner code " + code + " but recorded " + record.winner();
+            return null;
+        });
+    }
+
+    private static Report run(long games, int threads, LongFunction<String> names, GameCheck check) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        long start = System.nanoTime();
+        AtomicLong nextGame = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicReference<Divergence> first = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; ++t) {
+            workers.add(pool.submit(() -> {
+                GameLogic game = new GameLogic();
+                MemoryLogSink log = new MemoryLogSink();
+                game.setLogSink(log);
+                for (long i = nextGame.getAndIncrement(); i < games; i = nextGame.getAndIncrement()) {
+                    String detail;
+                    try {
+                        detail = check.verify(i, game, log);
+                    } catch (RuntimeException e) {
+                        detail = "replay failed: " + e;
+                    }
+                    if (detail != null) {
+                        failures.incrementAndGet();
+                        first.accumulateAndGet(new Divergence(i, names.apply(i), detail),
+                                (a, b) -> a == null || b.index() < a.index() ? b : a);
+                    }
+                    game.reset();
+                    log.clear();
+                }
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while verifying", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Verification thread failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(games, failures.get(), System.nanoTime() - start, first.get());
+    }
+
+    /**
+     * Performs moves through {@link GameLogic#move}.
+     * @return a description of the first illegal move, or {@code null} if all the moves were legal
+     */
+    private static String replay(GameLogic game, int[] moves) {
+        for (int i = 0; i < moves.length; ++i) {
+            if (!game.move(game.getPosition(Move.from(moves[i])), game.getPosition(Move.to(moves[i]))))
+                return "move " + (i + 1) + " " + Move.toString(moves[i]) + " is illegal";
+        }
+        return null;
+    }
+
+    // makes a log comparable as GameLogicTest compares it: no carriage returns and a final line break
+    private static String normalize(String log) {
+        log = log.replace("\r", "");
+        return log.isEmpty() || log.endsWith("\n") ? log : log + "\n";
+    }
+
+    /**
+     * Finds the first line on which two logs differ.
+     * @return a description of the difference, or {@code null} if the logs are equal
+     */
+    private static String firstDifference(String expected, String actual) {
+        if (expected.equals(actual)) return null;
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        int line = 0;
+        while (line < expectedLines.length && line < actualLines.length
+                && expectedLines[line].equals(actualLines[line])) line++;
+        String e = line < expectedLines.length ? "\"" + expectedLines[line] + "\"" : "end of log";
+        String a = line < actualLines.length ? "\"" + actualLines[line] + "\"" : "end of log";
+        return "log line " + (line + 1) + ": expected " + e + " but was " + a;
+    }
+
+    /**
+     * Verifies a directory of games or an archive and prints the report.
+     * <br>Usage: {@code ReplayVerifier dir [inputs] [outputs] [threads]} or
+     * {@code ReplayVerifier archive [archive] [threads]}
+     * @param args the kind of verification, its paths and optionally the number of threads (default all processors)
+     * @throws IOException if the games can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        Report report;
+        if (args.length >= 3 && args[0].equals("dir")) {
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : processors;
+            report = verifyDirectory(Path.of(args[1]), Path.of(args[2]), threads);
+        } else if (args.length >= 2 && args[0].equals("archive")) {
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : processors;
+            try (GameArchive archive = new GameArchive(Path.of(args[1]))) {
+                report = verifyArchive(archive, threads);
+            }
+        } else {
+            System.err.println("Usage: ReplayVerifier dir [inputs] [outputs] [threads] | "
+                    + "ReplayVerifier archive [archive] [threads]");
+            return;
+        }
+        System.out.println(report);
+        if (report.failures() > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayVerifierTest {
+    private static final Path INPUTS = Path.of("src/test/resources/inputs");
+    private static final Path OUTPUTS = Path.of("src/test/resources/outputs");
+    private static final int GAMES = 50;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Writes an archive of random games, with one move of a game replaced by an illegal move if {@code corruptGame} is
+     * not negative.
+     */
+    private Path writeArchive(int corruptGame, int corruptPly) throws IOException {
+        Path path = dir.resolve("games.vkga");
+        SplittableRandom random = new SplittableRandom(3);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        try (GameArchiveWriter writer = new GameArchiveWriter(path)) {
+            for (int g = 0; g < GAMES; ++g) {
+                GameLogic game = new GameLogic();
+                game.setLoggingEnabled(false);
+                while (!game.isGameFinished() && game.getHistoryLength() < 300) {
+                    int n = game.generateMoves(game.getCurrentPlayer(), moves);
+                    if (n == 0) break;
+                    int move = moves[random.nextInt(n)];
+                    game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move)));
+                }
+                int[] history = new int[game.getHistoryLength()];
+                for (int i = 0; i < history.length; ++i) history[i] = game.getHistoryMove(i);
+                if (g == corruptGame) history[corruptPly] = Move.of(0, 0);  // a corner is empty and can't be moved to
+                writer.append(history, history.length, game.getWinner());
+            }
+        }
+        return path;
+    }
+
+    @Test
+    void testFixturesPass() throws IOException {
+        ReplayVerifier.Report report = ReplayVerifier.verifyDirectory(INPUTS, OUTPUTS, 2);
+        assertEquals(new File(INPUTS.toString()).listFiles(File::isFile).length, report.games());
+        assertEquals(0, report.failures());
+        assertNull(report.first());
+    }
+
+    @Test
+    void testArchivePasses() throws IOException {
+        try (GameArchive archive = new GameArchive(writeArchive(-1, 0))) {
+            ReplayVerifier.Report report = ReplayVerifier.verifyArchive(archive, 4);
+            assertEquals(GAMES, report.games());
+            assertEquals(0, report.failures());
+            assertNull(report.first());
+        }
+    }
+
+    @Test
+    void testCorruptMoveIsReported() throws IOException {
+        try (GameArchive archive = new GameArchive(writeArchive(7, 4))) {
+            ReplayVerifier.Report report = ReplayVerifier.verifyArchive(archive, 4);
+            assertEquals(1, report.failures());
+            ReplayVerifier.Divergence first = report.first();
+            assertNotNull(first);
+            assertEquals(7, first.index());
+            assertEquals("game 7", first.game());
+            assertTrue(first.detail().startsWith("move 5 "), first.detail());
+        }
+    }
+
+    @Test
+    void testChangedLogIsReported() throws IOException {
+        Path inputs = Files.createDirectory(dir.resolve("inputs"));
+        Path outputs = Files.createDirectory(dir.resolve("outputs"));
+        for (File input : INPUTS.toFile().listFiles(File::isFile)) {
+            Files.copy(input.toPath(), inputs.resolve(input.getName()));
+            String output = input.getName().replace("input", "output");
+            Files.copy(OUTPUTS.resolve(output), outputs.resolve(output));
+        }
+        // the first line of the first game's log
+        Path expected = outputs.resolve("output1.txt");
+        String log = Files.readString(expected);
+        Files.writeString(expected, "changed" + log.substring(log.indexOf('\n')));
+
+        ReplayVerifier.Report report = ReplayVerifier.verifyDirectory(inputs, outputs, 2);
+        assertEquals(1, report.failures());
+        assertEquals("input1.txt", report.first().game());
+        assertTrue(report.first().detail().startsWith("log line 1: expected \"changed\""), report.first().detail());
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class is a micro-benchmark suite for the hot paths of the game rules, reporting the throughput and allocation
+ * rate of each benchmark.
+ * <p>Games are replayed from the move list fixtures of {@code src/test/resources/inputs}, in the same format read by
+ * {@code GameLogicTest}: the fixture with the fewest moves is the short game and the one with the most is the long game.
+ * Each benchmark is run for a number of warmup iterations, then measured over a number of iterations of fixed length.
+ * Only the benchmarked calls are measured, with the cost of measuring itself calibrated and subtracted.</p>
+ */
+public class RulesBenchmark {
+    private static final String FIXTURE_DIR = "src/test/resources/inputs";
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static volatile long sink;  // consumes benchmark results so they can't be optimised away
+
+    /**
+     * This class accumulates the time and allocated bytes of measured regions of code.
+     */
+    private static final class Meter {
+        private long nanos, bytes, ops, regions;
+        private long startNanos, startBytes;
+
+        void start() {
+            startBytes = THREADS.getCurrentThreadAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        void stop(int count) {
+            nanos += System.nanoTime() - startNanos;
+            bytes += THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+            ops += count;
+            regions++;
+        }
+    }
+
+    /**
+     * The Benchmark interface defines a benchmark body, which performs some operations and measures the relevant ones.
+     */
+    private interface Benchmark {
+        void run(Meter meter);
+    }
+
+    private record Case(String name, Benchmark body) { }
+
+    private static List<Position[]> readFixture(File file, GameLogic game) throws IOException {
+        Matcher matcher = Pattern.compile("\\((\\d+), (\\d+)\\)").matcher(Files.readString(file.toPath()));
+        List<Position[]> moves = new ArrayList<>();
+        Position from = null;
+        while (matcher.find()) {
+            Position pos = game.getPosition(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (from == null) from = pos;
+            else {
+                moves.add(new Position[] { from, pos });
+                from = null;
+            }
+        }
+        return moves;
+    }
+
+    private static void replay(GameLogic game, List<Position[]> moves) {
+        for (Position[] move : moves) {
+            if (!game.move(move[0], move[1])) throw new IllegalStateException("Fixture move is illegal");
+        }
+    }
+
+    private static void undoAll(GameLogic game, int count) {
+        for (int i = 0; i < count; ++i) game.undoLastMove();
+    }
+
+    /**
+     * Runs the benchmarks and prints a table of their results.
+     * <br>Usage: {@code RulesBenchmark [warmup iterations] [measurement iterations] [iteration millis]}
+     * @param args optional number of warmup iterations (default 3), measurement iterations (default 5) and length of
+     *             each iteration in milliseconds (default 1000)
+     * @throws IOException if the fixtures can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        int warmups = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long iterationNanos = (args.length > 2 ? Long.parseLong(args[2]) : 1000) * 1_000_000;
+
+        GameLogic game = new GameLogic();
+        game.setLoggingEnabled(false);
+        File[] files = new File(FIXTURE_DIR).listFiles(File::isFile);
+        if (files == null || files.length == 0) throw new IOException("No fixtures found in " + FIXTURE_DIR);
+        Map<File, List<Position[]>> fixtures = new HashMap<>();
+        for (File file : files) fixtures.put(file, readFixture(file, game));
+        Arrays.sort(files, Comparator.comparingInt(file -> fixtures.get(file).size()));
+        List<Position[]> shortGame = fixtures.get(files[0]);
+        List<Position[]> longGame = fixtures.get(files[files.length - 1]);
+
+        // board states along the long game, and the capturing moves made in it
+        List<GameLogic> states = new ArrayList<>();
+        List<Integer> captureMoves = new ArrayList<>();
+        for (int i = 0; i < longGame.size(); ++i) {
+            int move = Move.of(longGame.get(i)[0].index(), longGame.get(i)[1].index());
+            if (game.isCapture(move)) captureMoves.add(i);
+            game.move(longGame.get(i)[0], longGame.get(i)[1]);
+            states.add(game.copyForSearch());
+        }
+        game.reset();
+
+        // the logging statistics of a finished long game, gathered as GameLogic gathers them
+        GameLogic logged = new GameLogic();
+        logged.setLoggingEnabled(false);
+        List<ConcretePiece> pieces = new ArrayList<>();
+        for (int s = 0; s < BitBoard.NUM_SQUARES; ++s) {
+            Piece piece = logged.getPieceAtPosition(logged.getPosition(s));
+            if (piece != null) pieces.add((ConcretePiece) piece);
+        }
+        replay(logged, readFixture(files[files.length - 1], logged));
+        Set<ConcretePiece> pieceSet = new HashSet<>(pieces);
+        StepCounter steps = new StepCounter(pieces.size());
+        for (int i = 0; i < pieces.size(); ++i) {
+            for (Position pos : pieces.get(i).getMoveHistory()) steps.step(pos.index(), i);
+        }
+        Player winner = logged.getWinner();
+        PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+
+        List<Case> cases = List.of(
+                new Case("move() short game", m -> {
+                    m.start();
+                    replay(game, shortGame);
+                    m.stop(shortGame.size());
+                    undoAll(game, shortGame.size());
+                }),
+                new Case("move() long game", m -> {
+                    m.start();
+                    replay(game, longGame);
+                    m.stop(longGame.size());
+                    undoAll(game, longGame.size());
+                }),
+                new Case("undoLastMove()", m -> {
+                    replay(game, longGame);
+                    m.start();
+                    undoAll(game, longGame.size());
+                    m.stop(longGame.size());
+                }),
+                new Case("isGameFinished()", m -> {
+                    long finished = 0;
+                    m.start();
+                    for (GameLogic state : states) if (state.isGameFinished()) finished++;
+                    m.stop(states.size());
+                    sink += finished;
+                }),
+                new Case("capturing move()", m -> {
+                    int done = 0;
+                    for (int i : captureMoves) {
+                        for (; done < i; ++done) game.move(longGame.get(done)[0], longGame.get(done)[1]);
+                        m.start();
+                        game.move(longGame.get(i)[0], longGame.get(i)[1]);
+                        m.stop(1);
+                        done++;
+                    }
+                    undoAll(game, done);
+                }),
+                new Case("reset()", m -> {
+                    m.start();
+                    game.reset();
+                    m.stop(1);
+                }),
+                new Case("GameLogger.logGame()", m -> {
+                    m.start();
+                    new GameLogger(nowhere).logGame(winner, steps, pieceSet);
+                    m.stop(1);
+                })
+        );
+
+        // the cost of an empty measured region, subtracted from every region
+        Meter calibration = new Meter();
+        for (int i = 0; i < 1_000_000; ++i) {
+            calibration.start();
+            calibration.stop(0);
+        }
+        double regionNanos = (double) calibration.nanos / calibration.regions;
+        double regionBytes = (double) calibration.bytes / calibration.regions;
+
+        System.out.printf("%-22s %14s %12s %12s %12s%n", "benchmark", "ops/s", "ns/op", "B/op", "alloc MB/s");
+        for (Case c : cases) {
+            for (int i = 0; i < warmups; ++i) runFor(c.body(), iterationNanos);
+            Meter total = new Meter();
+            for (int i = 0; i < iterations; ++i) {
+                Meter meter = runFor(c.body(), iterationNanos);
+                total.nanos += meter.nanos;
+                total.bytes += meter.bytes;
+                total.ops += meter.ops;
+                total.regions += meter.regions;
+            }
+            double nanos = Math.max(1, total.nanos - regionNanos * total.regions);
+            double bytes = Math.max(0, total.bytes - regionBytes * total.regions);
+            System.out.printf("%-22s %14.0f %12.1f %12.1f %12.1f%n", c.name(), total.ops * 1e9 / nanos,
+                    nanos / total.ops, bytes / total.ops, bytes / nanos * 1e9 / (1 << 20));
+        }
+    }
+
+    private static Meter runFor(Benchmark body, long nanos) {
+        Meter meter = new Meter();
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) body.run(meter);
+        return meter;
+    }
+}
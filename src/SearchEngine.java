@@ -0,0 +1,325 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class represents a computer player, searching the game tree of a {@link GameLogic} for the best move.
+ * <p>The search is an iterative-deepening negamax alpha-beta search with principal variation search (PVS). It is driven
+ * by {@link GameLogic#makeMove} and {@link GameLogic#unmakeMove}, so the game is back in its original state when the
+ * search returns and none of its logging state is touched.</p>
+ * <p>An engine is not thread-safe, and the game must not be changed while it is being searched.</p>
+ */
+public class SearchEngine {
+    /**
+     * The maximum depth the search can reach.
+     */
+    public static final int MAX_DEPTH = 64;
+    /**
+     * The score of a won game, found at the root. Wins further down the tree score lower, by one point per ply.
+     */
+    public static final int WIN_SCORE = 1_000_000;
+    private static final int INFINITY = WIN_SCORE + 1;
+    /**
+     * The size of the transposition table an engine creates for itself, in megabytes.
+     */
+    public static final int DEFAULT_TABLE_MB = 16;
+
+    // evaluation weights, all from the point of view of the attacker
+    private static final int ATTACKER_PAWN = 100;
+    private static final int DEFENDER_PAWN = 200;
+    private static final int KING_BOXED_SIDE = 60;     // per side of the king blocked by an attacker or the edge
+    private static final int KING_OPEN_CORNER = 2000;  // per corner the king can reach in one move
+    private static final int KING_MOBILITY = 5;        // per square the king can move to
+    private static final int KING_CORNER_DIST = 15;    // per square between the king and its nearest corner
+
+    private final GameLogic game;
+    private final TranspositionTable table;
+    private final int[][] moves = new int[MAX_DEPTH + 1][GameLogic.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_DEPTH + 1][GameLogic.MAX_MOVES];
+    private final int[][] pv = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];   // triangular principal variation table
+    private final int[] pvLength = new int[MAX_DEPTH + 1];
+    private final int[][] killers = new int[MAX_DEPTH + 1][2];
+    private final int[] historyScores = new int[BitBoard.NUM_SQUARES * BitBoard.NUM_SQUARES];
+    private int[] prevPv = new int[0];     // principal variation of the previous iteration, searched first
+    private PrintStream info = null;
+    private AtomicBoolean stopSignal = new AtomicBoolean(false);
+    private int startDepth = 1;
+    private boolean newSearchOnStart = true;
+
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+
+    /**
+     * Constructs a search engine for a game, with its own transposition table of {@link #DEFAULT_TABLE_MB} megabytes.
+     * @param game the game to be searched, the engine always searches the game's current state
+     */
+    public SearchEngine(GameLogic game) {
+        this(game, new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * Constructs a search engine for a game, using a given transposition table.
+     * @param game the game to be searched, the engine always searches the game's current state
+     * @param table the transposition table to use, which may be shared with other engines
+     */
+    public SearchEngine(GameLogic game, TranspositionTable table) {
+        this.game = game;
+        this.table = table;
+    }
+
+    /**
+     * Sets a stream into which a report is printed after each completed iteration of the search.
+     * @param info the stream for the reports, or {@code null} to disable reporting
+     */
+    public void setInfoStream(PrintStream info) {
+        this.info = info;
+    }
+
+    /**
+     * Sets a signal that stops the search as soon as it is set, e.g. from another thread.
+     * <br>The engine never clears the signal, so a search started while it is set returns immediately.
+     * @param stopSignal the signal to watch, which may be shared with other engines
+     */
+    public void setStopSignal(AtomicBoolean stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    /**
+     * Sets the depth of the first iteration of the search, which is 1 by default.
+     * <br>Deeper iterations are always searched in order, this only allows skipping the shallow ones.
+     * @param startDepth the depth of the first iteration
+     */
+    public void setStartDepth(int startDepth) {
+        this.startDepth = Math.max(1, Math.min(startDepth, MAX_DEPTH));
+    }
+
+    /**
+     * Sets whether a search marks the start of a new search in the transposition table (see
+     * {@link TranspositionTable#newSearch()}), which it does by default.
+     * <br>Engines searching the same state at once on a shared table should not, the caller marks it once for all of
+     * them instead.
+     * @param newSearchOnStart true to mark the start of every search in the table
+     */
+    public void setNewSearchOnStart(boolean newSearchOnStart) {
+        this.newSearchOnStart = newSearchOnStart;
+    }
+
+    /**
+     * Searches the current state of the game for the best move of the current player.
+     * <br>The search deepens iteratively until {@code maxDepth} is completed, the time budget runs out or the stop signal
+     * is set (see {@link #setStopSignal}), in which case the result of the last completed iteration is returned.
+     * @param maxDepth the maximum depth to search to, up to {@link #MAX_DEPTH}
+     * @param timeMillis the time budget of the search in milliseconds
+     * @return the result of the search
+     */
+    public SearchResult search(int maxDepth, long timeMillis) {
+        long start = System.nanoTime();
+        deadline = start + timeMillis * 1_000_000;
+        stopped = stopSignal.get();
+        nodes = 0;
+        for (int[] k : killers) Arrays.fill(k, Move.NONE);
+        Arrays.fill(historyScores, 0);
+        if (newSearchOnStart) table.newSearch();
+
+        SearchResult result = new SearchResult(Move.NONE, 0, 0, 0, 0, new int[0]);
+        prevPv = new int[0];
+        for (int depth = Math.min(startDepth, maxDepth); depth <= Math.min(maxDepth, MAX_DEPTH); ++depth) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY, true);
+            if (stopped) break;     // the iteration is incomplete, so its result can't be trusted
+            prevPv = Arrays.copyOf(pv[0], pvLength[0]);
+            result = new SearchResult(prevPv.length > 0 ? prevPv[0] : Move.NONE, score, depth, nodes,
+                    System.nanoTime() - start, prevPv);
+            if (info != null) info.println(result);
+            if (prevPv.length == 0 || result.isWinScore()) break;   // no moves or a forced result, no point going deeper
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, System.nanoTime() - start,
+                result.pv());
+    }
+
+    /**
+     * Searches a node of the game tree.
+     * @param depth the remaining depth to search
+     * @param ply the distance of the node from the root
+     * @param alpha the lower bound of the search window
+     * @param beta the upper bound of the search window
+     * @param onPv true if the moves leading to the node are the start of the previous principal variation
+     * @return the score of the node from the point of view of the player to move
+     */
+    private int negamax(int depth, int ply, int alpha, int beta, boolean onPv) {
+        pvLength[ply] = 0;
+        if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || stopSignal.get())) stopped = true;
+        if (stopped) return 0;
+        if (depth <= 0 || ply == MAX_DEPTH) return evaluate();
+
+        long key = game.getHash();
+        long entry = table.probe(key);
+        int tableMove = Move.NONE;
+        if (entry != TranspositionTable.NONE) {
+            tableMove = TranspositionTable.move(entry);
+            // cut off with the stored score, but not on the principal variation so it is kept whole
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTableScore(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) return score;
+            }
+        }
+
+        Player mover = game.getCurrentPlayer();
+        int[] list = moves[ply];
+        int n = game.generateMoves(mover, list);
+        if (n == 0) return -(WIN_SCORE - ply);  // a player that can't move has lost
+        int pvMove = onPv && ply < prevPv.length ? prevPv[ply] : Move.NONE;
+        scoreMoves(ply, n, pvMove, tableMove);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < n; ++i) {
+            int move = pickMove(ply, i, n);
+            game.makeMove(move);
+            boolean childOnPv = move == pvMove && pvMove != Move.NONE;
+            int score;
+            Player winner = game.getWinner();
+            if (winner != null) {   // the game ended, so the move's score is exact and its variation ends here
+                score = winner == mover ? WIN_SCORE - ply - 1 : -(WIN_SCORE - ply - 1);
+                pvLength[ply + 1] = 0;
+            } else if (i == 0) score = -negamax(depth - 1, ply + 1, -beta, -alpha, childOnPv);
+            else {  // search the rest with a null window, and only re-search if it turns out better
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, false);
+                if (score > alpha && score < beta) score = -negamax(depth - 1, ply + 1, -beta, -alpha, false);
+            }
+            game.unmakeMove();
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][0] = move;
+                    System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+                    pvLength[ply] = pvLength[ply + 1] + 1;
+                }
+            }
+            if (alpha >= beta) {    // cutoff, remember the quiet move for ordering of sibling nodes
+                if (!game.isCapture(move) && killers[ply][0] != move) {
+                    killers[ply][1] = killers[ply][0];
+                    killers[ply][0] = move;
+                }
+                historyScores[Move.from(move) * BitBoard.NUM_SQUARES + Move.to(move)] += depth * depth;
+                break;
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > alphaOrig ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTableScore(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Converts a score to be stored in the transposition table, making win scores relative to the node rather than the
+     * root, so they are correct wherever the node is found again.
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score > WIN_SCORE - MAX_DEPTH) return score + ply;
+        if (score < -(WIN_SCORE - MAX_DEPTH)) return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a score read from the transposition table back to be relative to the root, see {@link #toTableScore}.
+     */
+    private static int fromTableScore(int score, int ply) {
+        if (score > WIN_SCORE - MAX_DEPTH) return score - ply;
+        if (score < -(WIN_SCORE - MAX_DEPTH)) return score + ply;
+        return score;
+    }
+
+    /**
+     * Assigns ordering scores to the moves of a node: the previous principal variation first, then the transposition
+     * table's move, then captures, then killer moves, then the rest by their history scores.
+     */
+    private void scoreMoves(int ply, int n, int pvMove, int tableMove) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < n; ++i) {
+            int move = list[i];
+            if (move == pvMove) scores[i] = Integer.MAX_VALUE;
+            else if (move == tableMove) scores[i] = Integer.MAX_VALUE - 1;
+            else if (game.isCapture(move)) scores[i] = Integer.MAX_VALUE - 3;
+            else if (move == killers[ply][0]) scores[i] = Integer.MAX_VALUE - 4;
+            else if (move == killers[ply][1]) scores[i] = Integer.MAX_VALUE - 5;
+            else scores[i] = historyScores[Move.from(move) * BitBoard.NUM_SQUARES + Move.to(move)];
+        }
+    }
+
+    /**
+     * Selects the best-scored move among the ones not searched yet and swaps it into position {@code i}.
+     * @return the selected move
+     */
+    private int pickMove(int ply, int i, int n) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int bestI = i;
+        for (int j = i + 1; j < n; ++j) if (scores[j] > scores[bestI]) bestI = j;
+        int move = list[bestI];
+        list[bestI] = list[i];
+        list[i] = move;
+        int score = scores[bestI];
+        scores[bestI] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    /**
+     * Evaluates the current board state statically.
+     * @return the score of the state from the point of view of the player to move
+     */
+    private int evaluate() {
+        Player attacker = game.getSecondPlayer();
+        Player defender = game.getFirstPlayer();
+        int score = ATTACKER_PAWN * game.getPawnCount(attacker) - DEFENDER_PAWN * game.getPawnCount(defender);
+        int kingS = game.getKingSquare();
+        for (int d = 0; d < 4; ++d) {
+            int side = BitBoard.neighbour(kingS, d);
+            if (side < 0 || game.isAttacker(side)) score += KING_BOXED_SIDE;
+            int len = BitBoard.rayLength(kingS, d);
+            int reach = 0;
+            while (reach < len && !game.isOccupied(BitBoard.raySquare(kingS, d, reach))) reach++;
+            score -= KING_MOBILITY * reach;
+            if (reach > 0 && reach == len && BitBoard.CORNERS.get(BitBoard.raySquare(kingS, d, len - 1)))
+                score -= KING_OPEN_CORNER;
+        }
+        int x = kingS % GameLogic.BOARD_SIZE;
+        int y = kingS / GameLogic.BOARD_SIZE;
+        int edge = GameLogic.BOARD_SIZE - 1;
+        score += KING_CORNER_DIST * (Math.min(x, edge - x) + Math.min(y, edge - y));
+        return game.isSecondPlayerTurn() ? score : -score;
+    }
+
+    /**
+     * Plays a game from the initial board state with the engine moving for both players, printing a report of each
+     * search and the average depth reached.
+     * <br>Usage: {@code SearchEngine [millis per move] [max moves]}
+     * @param args optional time budget per move in milliseconds (default 1000) and maximum number of moves (default 40)
+     */
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxMoves = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        GameLogic game = new GameLogic();
+        SearchEngine engine = new SearchEngine(game);
+        long depthSum = 0;
+        int played = 0;
+        while (played < maxMoves && !game.isGameFinished()) {
+            SearchResult result = engine.search(MAX_DEPTH, millis);
+            System.out.println((game.isSecondPlayerTurn() ? "attacker " : "defender ") + result);
+            if (result.bestMove() == Move.NONE) break;
+            game.move(game.getPosition(Move.from(result.bestMove())), game.getPosition(Move.to(result.bestMove())));
+            depthSum += result.depth();
+            played++;
+        }
+        if (played > 0) System.out.printf("average depth %.2f over %d moves%n", (double) depthSum / played, played);
+    }
+}
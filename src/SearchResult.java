@@ -0,0 +1,39 @@
+/**
+ * This record holds the outcome of a (possibly partial) search by {@link SearchEngine}.
+ * @param bestMove the best move found, in the encoding of {@link Move}, or {@link Move#NONE} if there is no legal move
+ * @param score the score of the best move from the point of view of the player to move
+ * @param depth the depth of the last fully completed iteration
+ * @param nodes the number of nodes visited by the whole search
+ * @param nanos the time the whole search took, in nanoseconds
+ * @param pv the principal variation, starting with {@code bestMove}
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long nanos, int[] pv) {
+    /**
+     * Returns the search speed.
+     * @return the number of nodes visited per second
+     */
+    public long nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    /**
+     * Checks whether the score of the search is a forced win or loss.
+     * @return true if the score is the score of a game end found by the search
+     */
+    public boolean isWinScore() {
+        return Math.abs(score) > SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH;
+    }
+
+    /**
+     * Returns a one-line report of the search, including depth, score, speed and principal variation.
+     * @return the report of the search
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth).append(" score ").append(score).append(" nodes ").append(nodes)
+                .append(" nps ").append(nodesPerSecond()).append(" time ").append(nanos / 1_000_000).append("ms pv");
+        for (int move : pv) sb.append(' ').append(Move.toString(move));
+        return sb.toString();
+    }
+}
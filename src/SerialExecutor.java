@@ -0,0 +1,65 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class represents an executor that runs its tasks one at a time, in the order they were submitted, on another
+ * executor.
+ * <p>Tasks wait in a lock-free queue, which is drained by a single task of the underlying executor while there is work,
+ * so any number of serial executors can share one executor (e.g. one per game on a thread pool). A task happens-before
+ * the tasks submitted after it, so the tasks need no synchronization of their own.</p>
+ * <p>If a task throws, the exception reaches the underlying executor and the remaining tasks are run by a new drain.</p>
+ */
+public class SerialExecutor implements Executor {
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);  // whether a drain is pending or running
+
+    /**
+     * Constructs a serial executor.
+     * @param executor the executor on which the tasks are run
+     */
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a task to run after the tasks submitted before it.
+     * @param task the task to run
+     * @throws RejectedExecutionException if the underlying executor rejects the drain, in which case the task is not
+     * run
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        try {
+            schedule();
+        } catch (RejectedExecutionException e) {
+            tasks.remove(task);
+            throw e;
+        }
+    }
+
+    private void schedule() {
+        if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            throw e;
+        }
+    }
+
+    private void drain() {
+        try {
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) task.run();
+        } finally {
+            // a task queued after the queue was found empty but before scheduled was cleared didn't schedule a drain,
+            // and if a task failed the rest are still queued
+            scheduled.set(false);
+            schedule();
+        }
+    }
+}
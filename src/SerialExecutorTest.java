@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialExecutorTest {
+    @Test
+    void testTasksRunInOrderOneAtATime() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            SerialExecutor serial = new SerialExecutor(pool);
+            List<Integer> order = new ArrayList<>();    // only used by the tasks, which never overlap
+            AtomicInteger running = new AtomicInteger();
+            AtomicBoolean overlapped = new AtomicBoolean(false);
+            CountDownLatch done = new CountDownLatch(10_000);
+            for (int i = 0; i < 10_000; ++i) {
+                int n = i;
+                serial.execute(() -> {
+                    if (running.incrementAndGet() != 1) overlapped.set(true);
+                    order.add(n);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < order.size(); ++i) assertEquals(i, order.get(i));
+            assertFalse(overlapped.get(), "tasks ran concurrently");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testTasksFromManyThreadsAllRun() throws InterruptedException {
+        // tasks submitted while a drain is finding the queue empty must not be stranded
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; ++round) {
+                SerialExecutor serial = new SerialExecutor(pool);
+                AtomicInteger running = new AtomicInteger();
+                AtomicBoolean overlapped = new AtomicBoolean(false);
+                CountDownLatch done = new CountDownLatch(4 * 100);
+                List<Thread> producers = new ArrayList<>();
+                for (int t = 0; t < 4; ++t) {
+                    Thread producer = new Thread(() -> {
+                        for (int i = 0; i < 100; ++i) {
+                            serial.execute(() -> {
+                                if (running.incrementAndGet() != 1) overlapped.set(true);
+                                running.decrementAndGet();
+                                done.countDown();
+                            });
+                            if (i % 10 == 0) Thread.yield();
+                        }
+                    });
+                    producer.start();
+                    producers.add(producer);
+                }
+                for (Thread producer : producers) producer.join();
+                assertTrue(done.await(10, TimeUnit.SECONDS), "tasks were stranded in round " + round);
+                assertFalse(overlapped.get(), "tasks ran concurrently in round " + round);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedTaskDoesNotStopLaterTasks() throws InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+        // runs each drain on a new thread, collecting the exceptions that reach it
+        SerialExecutor serial = new SerialExecutor(task -> new Thread(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            }
+        }).start());
+        CountDownLatch done = new CountDownLatch(2);
+        serial.execute(done::countDown);
+        serial.execute(() -> {
+            throw new IllegalStateException("failed task");
+        });
+        serial.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        synchronized (failures) {
+            assertEquals(1, failures.size());
+            assertEquals("failed task", failures.get(0).getMessage());
+        }
+    }
+
+    @Test
+    void testRejectedTaskIsNotRun() throws InterruptedException {
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        SerialExecutor serial = new SerialExecutor(task -> {
+            if (rejecting.get()) throw new RejectedExecutionException();
+            task.run();
+        });
+        AtomicBoolean rejectedRan = new AtomicBoolean(false);
+        assertThrows(RejectedExecutionException.class, () -> serial.execute(() -> rejectedRan.set(true)));
+
+        // once the executor accepts drains again, only the later task is run
+        rejecting.set(false);
+        AtomicBoolean acceptedRan = new AtomicBoolean(false);
+        serial.execute(() -> acceptedRan.set(true));
+        assertTrue(acceptedRan.get());
+        assertFalse(rejectedRan.get());
+    }
+}
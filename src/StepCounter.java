@@ -0,0 +1,78 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class counts the steps of a game's pieces on the squares of the board for logging purposes: how many times each
+ * piece stepped on each square, and how many distinct pieces stepped on each square.
+ * <br>The counts belong to a single game, so {@link Position}s hold no game state and can be shared between games and
+ * threads. Pieces are identified by their index in the game, and a piece's initial square counts as a step.
+ */
+public class StepCounter {
+    private final int numPieces;
+    private final int[] steps;      // number of steps of each piece on each square, at [square * numPieces + piece]
+    private final int[] distinct = new int[BitBoard.NUM_SQUARES];   // number of distinct pieces stepped on each square
+
+    /**
+     * Constructs a counter with no steps.
+     * @param numPieces the number of pieces in the game, which are indexed from 0 to {@code numPieces - 1}
+     */
+    public StepCounter(int numPieces) {
+        this.numPieces = numPieces;
+        steps = new int[BitBoard.NUM_SQUARES * numPieces];
+    }
+
+    /**
+     * Records that a piece stepped on a square.
+     * @param square the square, see {@link BitBoard#square}
+     * @param piece the index of the piece that stepped there
+     */
+    public void step(int square, int piece) {
+        if (steps[square * numPieces + piece]++ == 0) distinct[square]++;
+    }
+
+    /**
+     * Undoes a step and removes it from the counts.
+     * @param square the square, see {@link BitBoard#square}
+     * @param piece the index of the piece to undo a step for
+     * @throws RuntimeException if the piece never stepped on the square
+     */
+    public void undoStep(int square, int piece) {
+        int i = square * numPieces + piece;
+        if (steps[i] == 0) throw new RuntimeException("Tried to undo step of piece that never stepped here");
+        if (--steps[i] == 0) distinct[square]--;
+    }
+
+    /**
+     * Returns the number of distinct pieces that stepped on a square.
+     * @param square the square, see {@link BitBoard#square}
+     * @return number of distinct pieces that stepped on the square
+     */
+    public int getSteppedCount(int square) {
+        return distinct[square];
+    }
+
+    /**
+     * Removes all the recorded steps, so the counter can be reused for a new game.
+     */
+    public void clear() {
+        Arrays.fill(steps, 0);
+        Arrays.fill(distinct, 0);
+    }
+
+    /**
+     * Returns a comparator that compares two positions according to the following rules:
+     * <br>First, by number of distinct pieces stepped on, in reverse order.
+     * <br>If they are equal, by x values.
+     * <br>If they are equal, by y values.
+     * @return the required comparator
+     */
+    public Comparator<Position> steppedComparator() {
+        return (p1, p2) -> {
+            int sComp = Integer.compare(distinct[p2.index()], distinct[p1.index()]);
+            if (sComp != 0) return sComp;
+            int xComp = Integer.compare(p1.x(), p2.x());
+            if (xComp != 0) return xComp;
+            return Integer.compare(p1.y(), p2.y());
+        };
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class runs headless self-play tournaments: many automated games between two move strategies, spread across a
+ * pool of threads, with the results aggregated over all the games.
+ * <p>Each thread plays its games on a single {@link GameLogic} that is reset between games, so the wins are counted by
+ * the game's own players, exactly as in interactive play.</p>
+ */
+public class Tournament {
+    private static final double Z_95 = 1.959964;    // standard normal quantile of a 95% confidence interval
+
+    /**
+     * This record holds the aggregated results of a tournament.
+     * @param games the number of games played
+     * @param attackerWins the number of games won by player 2 (the attacker)
+     * @param defenderWins the number of games won by player 1 (the defender)
+     * @param nanos the time the tournament took, in nanoseconds
+     */
+    public record Results(long games, long attackerWins, long defenderWins, long nanos) {
+        /**
+         * Returns the number of games that ended without a winner, either by reaching the maximum length or by a player
+         * having no legal move.
+         * @return the number of drawn games
+         */
+        public long draws() {
+            return games - attackerWins - defenderWins;
+        }
+
+        /**
+         * Returns the tournament speed.
+         * @return the number of games played per second
+         */
+        public double gamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games in %.2fs (%.1f games/s)%n", games, nanos / 1e9, gamesPerSecond())
+                    + line("attacker wins", attackerWins) + line("defender wins", defenderWins)
+                    + line("draws", draws());
+        }
+
+        private String line(String name, long count) {
+            double[] interval = wilsonInterval(count, games);
+            return String.format("%-14s %10d  %6.2f%%  95%% CI [%6.2f%%, %6.2f%%]%n", name, count,
+                    games == 0 ? 0 : 100.0 * count / games, 100 * interval[0], 100 * interval[1]);
+        }
+    }
+
+    /**
+     * Computes the 95% Wilson score interval of a proportion.
+     * @param successes the number of successes
+     * @param trials the number of trials
+     * @return the lower and upper bounds of the interval
+     */
+    public static double[] wilsonInterval(long successes, long trials) {
+        if (trials == 0) return new double[] { 0, 1 };
+        double p = (double) successes / trials;
+        double z2 = Z_95 * Z_95;
+        double denominator = 1 + z2 / trials;
+        double center = (p + z2 / (2 * trials)) / denominator;
+        double half = Z_95 * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+        return new double[] { Math.max(0, center - half), Math.min(1, center + half) };
+    }
+
+    /**
+     * Returns a strategy that chooses a uniformly random legal move.
+     * @param random the source of randomness
+     * @return the random strategy
+     */
+    public static MoveStrategy randomStrategy(SplittableRandom random) {
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        return game -> {
+            int n = game.generateMoves(game.getCurrentPlayer(), moves);
+            return n == 0 ? Move.NONE : moves[random.nextInt(n)];
+        };
+    }
+
+    /**
+     * Returns a strategy that chooses a winning move if there is one, otherwise a random capturing move if there is one,
+     * otherwise a random legal move.
+     * @param random the source of randomness
+     * @return the greedy strategy
+     */
+    public static MoveStrategy greedyStrategy(SplittableRandom random) {
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        return game -> {
+            Player mover = game.getCurrentPlayer();
+            int n = game.generateMoves(mover, moves);
+            if (n == 0) return Move.NONE;
+            int captures = 0;
+            for (int i = 0; i < n; ++i) {
+                game.makeMove(moves[i]);
+                boolean won = game.getWinner() == mover;
+                game.unmakeMove();
+                if (won) return moves[i];
+                if (game.isCapture(moves[i])) moves[captures++] = moves[i];     // gather captures at the start
+            }
+            return moves[random.nextInt(captures > 0 ? captures : n)];
+        };
+    }
+
+    /**
+     * Returns a strategy that chooses the best move found by a {@link SearchEngine} searching to a fixed depth.
+     * @param depth the depth of the search
+     * @return the search strategy
+     */
+    public static MoveStrategy searchStrategy(int depth) {
+        TranspositionTable table = new TranspositionTable(SearchEngine.DEFAULT_TABLE_MB);
+        return new MoveStrategy() {
+            private GameLogic searched = null;
+            private SearchEngine engine = null;
+
+            @Override
+            public int chooseMove(GameLogic game) {
+                if (game != searched) {
+                    searched = game;
+                    engine = new SearchEngine(game, table);
+                }
+                return engine.search(depth, Long.MAX_VALUE / 2_000_000).bestMove();
+            }
+        };
+    }
+
+    /**
+     * Parses a strategy name into a factory of strategies.
+     * @param name one of "random", "greedy", or "search" optionally followed by ":{depth}" (default depth 2)
+     * @return a factory creating a strategy from a source of randomness
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Function<SplittableRandom, MoveStrategy> parseStrategy(String name) {
+        if (name.equals("random")) return Tournament::randomStrategy;
+        if (name.equals("greedy")) return Tournament::greedyStrategy;
+        if (name.equals("search") || name.startsWith("search:")) {
+            int depth = name.equals("search") ? 2 : Integer.parseInt(name.substring("search:".length()));
+            return random -> searchStrategy(depth);
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+
+    /**
+     * Plays a tournament.
+     * @param games the number of games to play
+     * @param threads the number of threads to play on
+     * @param attacker a factory of the strategy of player 2 (the attacker), called once per thread
+     * @param defender a factory of the strategy of player 1 (the defender), called once per thread
+     * @param maxPlies a game that reaches this many moves without a winner is a draw
+     * @param log the thread-safe sink into which game-end statistics of each game are logged, or null for no logging
+     * @param seed the seed from which the threads' sources of randomness are derived
+     * @return the aggregated results
+     */
+    public static Results play(long games, int threads, Function<SplittableRandom, MoveStrategy> attacker,
+                               Function<SplittableRandom, MoveStrategy> defender, int maxPlies, LogSink log,
+                               long seed) {
+        long start = System.nanoTime();
+        AtomicLong nextGame = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> workers = new ArrayList<>(threads);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < threads; ++i) {
+            SplittableRandom random = seeds.split();
+            workers.add(pool.submit(() -> {
+                MoveStrategy attackerStrategy = attacker.apply(random);
+                MoveStrategy defenderStrategy = defender.apply(random);
+                GameLogic game = new GameLogic();
+                game.setLoggingEnabled(log != null);
+                if (log != null) game.setLogSink(log);
+                long played = 0;
+                while (nextGame.getAndIncrement() < games) {
+                    playGame(game, attackerStrategy, defenderStrategy, maxPlies);
+                    game.reset();
+                    played++;
+                }
+                return new long[] { played, game.getSecondPlayer().getWins(), game.getFirstPlayer().getWins() };
+            }));
+        }
+        long played = 0, attackerWins = 0, defenderWins = 0;
+        try {
+            for (Future<long[]> worker : workers) {
+                long[] counts = worker.get();
+                played += counts[0];
+                attackerWins += counts[1];
+                defenderWins += counts[2];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while playing", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Game thread failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Results(played, attackerWins, defenderWins, System.nanoTime() - start);
+    }
+
+    private static void playGame(GameLogic game, MoveStrategy attacker, MoveStrategy defender, int maxPlies) {
+        for (int ply = 0; ply < maxPlies && !game.isGameFinished(); ++ply) {
+            int move = (game.isSecondPlayerTurn() ? attacker : defender).chooseMove(game);
+            if (move == Move.NONE) return;
+            if (!game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move))))
+                throw new IllegalStateException("Strategy chose an illegal move: " + Move.toString(move));
+        }
+    }
+
+    /**
+     * Plays a tournament and prints its results.
+     * <br>Usage: {@code Tournament [games] [threads] [attacker] [defender] [max plies] [--log]}
+     * @param args optional number of games (default 10000), number of threads (default all processors), strategies of
+     *             the attacker and the defender (default "random", see {@link #parseStrategy}), maximum game length in
+     *             moves (default 500), and "--log" to print game-end statistics of each game, which are written by a
+     *             background thread (see {@link AsyncLogSink})
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String attacker = args.length > 2 ? args[2] : "random";
+        String defender = args.length > 3 ? args[3] : "random";
+        int maxPlies = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+        boolean log = args.length > 5 && args[5].equals("--log");
+        Results results;
+        try (LogSink sink = log ? new AsyncLogSink(WriterLogSink.bufferedConsole()) : null) {
+            results = play(games, threads, parseStrategy(attacker), parseStrategy(defender), maxPlies, sink,
+                    System.nanoTime());
+        }
+        System.out.println("attacker: " + attacker + ", defender: " + defender + ", " + threads + " thread(s)");
+        System.out.print(results);
+    }
+}
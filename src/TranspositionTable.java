@@ -0,0 +1,174 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class represents a fixed-size transposition table, caching search results by the hash of the board state (see
+ * {@link GameLogic#getHash()}).
+ * <p>The table is stored off-heap in direct buffers, so its size doesn't burden the garbage collector. Entries are 16
+ * bytes: the key XORed with the data, then the data itself, which packs the best move, score, depth, bound and the
+ * generation of the search that stored it. Entries are grouped in buckets of 4 that fill a cache line.</p>
+ * <p>The table is lock-free and can be shared by any number of threads. A torn entry (two threads writing the same
+ * entry at once) fails the XOR check on probe and is treated as missing, so probes never return corrupt data.</p>
+ */
+public final class TranspositionTable {
+    /**
+     * Bound types of a stored score: the real score is at most, at least or exactly the stored one.
+     * <br>Valid data never equals {@link #NONE} since the bound is never 0.
+     */
+    public static final int UPPER = 1, LOWER = 2, EXACT = 3;
+    /**
+     * The value returned by {@link #probe} when the key is not in the table.
+     */
+    public static final long NONE = 0;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    private static final int CHUNK_SHIFT = 30;  // direct buffers are int-indexed, so the table is split to 1GB chunks
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // data layout: move (16 bits) | score (32 bits) | depth (8 bits) | bound (2 bits) | generation (6 bits)
+    private static final int SCORE_SHIFT = 16, DEPTH_SHIFT = 48, BOUND_SHIFT = 56, GENERATION_SHIFT = 58;
+
+    private final ByteBuffer[] chunks;
+    private final long bucketMask;
+    private volatile int generation = 0;    // of the current search, only changed by newSearch and clear
+
+    /**
+     * Constructs an empty table.
+     * @param sizeMb the size of the table in megabytes, rounded down to a power of two
+     * @throws IllegalArgumentException if {@code sizeMb} is not positive
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb <= 0) throw new IllegalArgumentException("Table size must be positive");
+        long bytes = Long.highestOneBit(sizeMb) << 20;
+        bucketMask = bytes / BUCKET_BYTES - 1;
+        long chunkBytes = Math.min(bytes, 1L << CHUNK_SHIFT);
+        chunks = new ByteBuffer[(int) (bytes / chunkBytes)];
+        for (int i = 0; i < chunks.length; ++i) chunks[i] = ByteBuffer.allocateDirect((int) chunkBytes);
+    }
+
+    /**
+     * Returns the size of the table.
+     * @return the size of the table in bytes
+     */
+    public long sizeBytes() {
+        return (bucketMask + 1) * BUCKET_BYTES;
+    }
+
+    /**
+     * Removes all entries from the table. Must not be called while the table is in use by a search.
+     */
+    public synchronized void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int i = 0; i < chunk.capacity(); i += Long.BYTES) LONGS.set(chunk, i, 0L);
+        }
+        generation = 0;
+    }
+
+    /**
+     * Marks the start of a new search, so entries of previous searches are preferred for replacement.
+     * <br>Engines sharing the table must start their searches with a single call, see
+     * {@link SearchEngine#setNewSearchOnStart}.
+     */
+    public synchronized void newSearch() {
+        generation = (generation + 1) & 0x3F;
+    }
+
+    /**
+     * Looks up an entry.
+     * @param key the hash of the board state
+     * @return the packed data of the entry, to be read by {@link #move}, {@link #score}, {@link #depth} and
+     * {@link #bound}, or {@link #NONE} if there is no valid entry for {@code key}
+     */
+    public long probe(long key) {
+        long bucket = (key & bucketMask) * BUCKET_BYTES;
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_SHIFT)];
+        int offset = (int) (bucket & ((1L << CHUNK_SHIFT) - 1));
+        for (int i = 0; i < BUCKET_ENTRIES; ++i, offset += ENTRY_BYTES) {
+            long data = (long) LONGS.getOpaque(chunk, offset + Long.BYTES);
+            if (((long) LONGS.getOpaque(chunk, offset) ^ data) == key && data != NONE) return data;
+        }
+        return NONE;
+    }
+
+    /**
+     * Stores an entry, replacing the entry of the same key if there is one, otherwise the least valuable entry of the
+     * bucket: entries of previous searches first, then the shallowest.
+     * @param key the hash of the board state
+     * @param move the best move found, in the encoding of {@link Move}
+     * @param score the score found
+     * @param depth the depth searched, between 0 and 255
+     * @param bound one of {@link #UPPER}, {@link #LOWER}, {@link #EXACT}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        long bucket = (key & bucketMask) * BUCKET_BYTES;
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_SHIFT)];
+        int offset = (int) (bucket & ((1L << CHUNK_SHIFT) - 1));
+        int generation = this.generation;   // read once, so the entry is compared and stored under one generation
+        int target = offset;
+        int targetValue = Integer.MAX_VALUE;
+        for (int i = 0, o = offset; i < BUCKET_ENTRIES; ++i, o += ENTRY_BYTES) {
+            long data = (long) LONGS.getOpaque(chunk, o + Long.BYTES);
+            if (((long) LONGS.getOpaque(chunk, o) ^ data) == key) {
+                // keep a deeper result of the current search unless the new one is exact
+                if (depth < depth(data) && bound != EXACT && generation(data) == generation) return;
+                target = o;
+                break;
+            }
+            // entries of the current search are worth more than any old entry
+            int value = depth(data) + (generation(data) == generation ? 256 : 0);
+            if (data == NONE) value = -1;
+            if (value < targetValue) {
+                target = o;
+                targetValue = value;
+            }
+        }
+        long data = (move & 0xFFFFL) | ((score & 0xFFFFFFFFL) << SCORE_SHIFT) | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT) | ((long) generation << GENERATION_SHIFT);
+        LONGS.setOpaque(chunk, target, key ^ data);
+        LONGS.setOpaque(chunk, target + Long.BYTES, data);
+    }
+
+    /**
+     * Returns the best move of an entry.
+     * @param data the data returned by {@link #probe}
+     * @return the stored move, in the encoding of {@link Move}
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * Returns the score of an entry.
+     * @param data the data returned by {@link #probe}
+     * @return the stored score
+     */
+    public static int score(long data) {
+        return (int) (data >>> SCORE_SHIFT);
+    }
+
+    /**
+     * Returns the searched depth of an entry.
+     * @param data the data returned by {@link #probe}
+     * @return the stored depth
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the bound type of an entry.
+     * @param data the data returned by {@link #probe}
+     * @return one of {@link #UPPER}, {@link #LOWER}, {@link #EXACT}
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0x3F;
+    }
+}
@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+    private static final int TABLE_MB = 1;
+    private static final long BUCKETS = (TABLE_MB << 20) / 64;     // buckets of 4 entries of 16 bytes
+    private static final long KEY = 0x1234_5678_9ABC_DEF0L;
+
+    // a key in the same bucket as KEY
+    private static long sameBucket(long n) {
+        return KEY + n * BUCKETS;
+    }
+
+    @Test
+    void testStoreThenProbe() {
+        TranspositionTable table = new TranspositionTable(TABLE_MB);
+        assertEquals(TABLE_MB << 20, table.sizeBytes());
+        assertEquals(TranspositionTable.NONE, table.probe(KEY));
+        int move = Move.of(BitBoard.square(3, 0), BitBoard.square(3, 4));
+        table.store(KEY, move, -12345, 7, TranspositionTable.UPPER);
+        long data = table.probe(KEY);
+        assertNotEquals(TranspositionTable.NONE, data);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(-12345, TranspositionTable.score(data));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(data));
+    }
+
+    @Test
+    void testDeeperEntryOfCurrentSearchIsKept() {
+        TranspositionTable table = new TranspositionTable(TABLE_MB);
+        table.newSearch();
+        table.store(KEY, 1, 10, 6, TranspositionTable.LOWER);
+        table.store(KEY, 2, 20, 3, TranspositionTable.LOWER);
+        assertEquals(6, TranspositionTable.depth(table.probe(KEY)));
+        assertEquals(1, TranspositionTable.move(table.probe(KEY)));
+
+        // an exact result replaces it regardless of depth
+        table.store(KEY, 3, 30, 2, TranspositionTable.EXACT);
+        assertEquals(2, TranspositionTable.depth(table.probe(KEY)));
+
+        // a shallower result of a later search replaces a deeper one
+        table.store(KEY, 4, 40, 8, TranspositionTable.LOWER);
+        table.newSearch();
+        table.store(KEY, 5, 50, 1, TranspositionTable.UPPER);
+        long data = table.probe(KEY);
+        assertEquals(5, TranspositionTable.move(data));
+        assertEquals(1, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(data));
+    }
+
+    @Test
+    void testFullBucketReplacesLeastValuableEntry() {
+        TranspositionTable table = new TranspositionTable(TABLE_MB);
+        table.store(sameBucket(0), 1, 0, 9, TranspositionTable.EXACT);   // of the previous search
+        table.newSearch();
+        for (int i = 1; i < 4; ++i) table.store(sameBucket(i), 1, 0, i, TranspositionTable.EXACT);
+        table.store(sameBucket(4), 1, 0, 5, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NONE, table.probe(sameBucket(0)));  // old, even though it is the deepest
+        for (int i = 1; i <= 4; ++i) assertNotEquals(TranspositionTable.NONE, table.probe(sameBucket(i)));
+
+        table.store(sameBucket(5), 1, 0, 4, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NONE, table.probe(sameBucket(1)));  // the shallowest of the current search
+        for (int i = 2; i <= 5; ++i) assertNotEquals(TranspositionTable.NONE, table.probe(sameBucket(i)));
+    }
+
+    @Test
+    void testCollidingKeyIsRejected() {
+        TranspositionTable table = new TranspositionTable(TABLE_MB);
+        table.store(KEY, 1, 10, 3, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NONE, table.probe(sameBucket(1)));
+        assertEquals(TranspositionTable.NONE, table.probe(KEY ^ 1L << 63));
+        assertNotEquals(TranspositionTable.NONE, table.probe(KEY));
+    }
+
+    @Test
+    void testZeroKeyAndClear() {
+        TranspositionTable table = new TranspositionTable(TABLE_MB);
+        assertEquals(TranspositionTable.NONE, table.probe(0));  // an empty entry is not a valid entry of key 0
+        table.store(0, 0, 0, 0, TranspositionTable.LOWER);
+        long data = table.probe(0);
+        assertNotEquals(TranspositionTable.NONE, data);
+        assertEquals(0, TranspositionTable.move(data));
+        assertEquals(0, TranspositionTable.score(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+
+        table.store(KEY, 1, 10, 3, TranspositionTable.EXACT);
+        table.clear();
+        assertEquals(TranspositionTable.NONE, table.probe(0));
+        assertEquals(TranspositionTable.NONE, table.probe(KEY));
+    }
+}
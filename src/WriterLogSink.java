@@ -0,0 +1,79 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * This class represents a log sink that writes into a {@code Writer} through a large buffer, so that text only reaches
+ * the underlying writer in big chunks.
+ * <br>The sink is thread-safe, since {@code Writer} operations are synchronized.
+ */
+public class WriterLogSink implements LogSink {
+    /**
+     * The default size of the buffer in characters.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+
+    /**
+     * Constructs a sink writing into a writer through a buffer of {@link #DEFAULT_BUFFER_SIZE} characters.
+     * @param out the writer to write into, which is closed when the sink is closed
+     */
+    public WriterLogSink(Writer out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a sink writing into a writer through a buffer.
+     * @param out the writer to write into, which is closed when the sink is closed
+     * @param bufferSize the size of the buffer in characters
+     */
+    public WriterLogSink(Writer out, int bufferSize) {
+        this.out = new BufferedWriter(out, bufferSize);
+    }
+
+    /**
+     * Returns a buffered sink writing to {@code System.out}, which is never closed by the sink.
+     * <br>Unlike {@link LogSink#console()}, the stream is fixed when the sink is created and text only appears on
+     * {@link #flush()} or when the buffer fills up.
+     * @return the buffered console sink
+     */
+    public static WriterLogSink bufferedConsole() {
+        return new WriterLogSink(new OutputStreamWriter(System.out, Charset.defaultCharset()) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    @Override
+    public void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing log", e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error flushing log", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error closing log", e);
+        }
+    }
+}
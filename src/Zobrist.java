@@ -0,0 +1,38 @@
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the random keys for Zobrist hashing of board states.
+ * <br>The hash of a state is the XOR of the keys of every (piece kind, square) pair on the board, and of
+ * {@link #DEFENDER_TO_MOVE} if it is player 1's turn. This allows updating the hash incrementally, since placing and
+ * removing a piece both XOR the same key.
+ */
+public final class Zobrist {
+    /**
+     * Piece kinds, each with its own set of keys.
+     */
+    public static final int ATTACKER_PAWN = 0, DEFENDER_PAWN = 1, KING = 2;
+    /**
+     * The key that is part of the hash if it's player 1's turn (the defender).
+     */
+    public static final long DEFENDER_TO_MOVE;
+    private static final long[] KEYS = new long[3 * BitBoard.NUM_SQUARES];
+
+    static {
+        // a fixed seed keeps hashes stable between runs, so they can be stored and compared
+        SplittableRandom random = new SplittableRandom(0x5EED_7AF1L);
+        for (int i = 0; i < KEYS.length; ++i) KEYS[i] = random.nextLong();
+        DEFENDER_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() { }
+
+    /**
+     * Returns the key of a piece kind on a square.
+     * @param kind one of {@link #ATTACKER_PAWN}, {@link #DEFENDER_PAWN}, {@link #KING}
+     * @param square the square of the piece, see {@link BitBoard#square}
+     * @return the key of the pair
+     */
+    public static long key(int kind, int square) {
+        return KEYS[kind * BitBoard.NUM_SQUARES + square];
+    }
+}
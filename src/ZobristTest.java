@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZobristTest {
+    // the hash of the game's board state, computed from scratch as described in Zobrist
+    private static long hashOf(GameLogic game) {
+        long hash = game.isSecondPlayerTurn() ? 0 : Zobrist.DEFENDER_TO_MOVE;
+        for (int s = 0; s < BitBoard.NUM_SQUARES; ++s) {
+            if (s == game.getKingSquare()) hash ^= Zobrist.key(Zobrist.KING, s);
+            else if (game.isAttacker(s)) hash ^= Zobrist.key(Zobrist.ATTACKER_PAWN, s);
+            else if (game.isOccupied(s)) hash ^= Zobrist.key(Zobrist.DEFENDER_PAWN, s);
+        }
+        return hash;
+    }
+
+    private static GameLogic newGame() {
+        GameLogic game = new GameLogic();
+        game.setLoggingEnabled(false);
+        return game;
+    }
+
+    private static boolean move(GameLogic game, int move) {
+        return game.move(game.getPosition(Move.from(move)), game.getPosition(Move.to(move)));
+    }
+
+    @Test
+    void testIncrementalHashMatchesFromScratch() {
+        GameLogic game = newGame();
+        assertEquals(hashOf(game), game.getHash());
+        SplittableRandom random = new SplittableRandom(11);
+        int[] moves = new int[GameLogic.MAX_MOVES];
+        int[] searchMoves = new int[GameLogic.MAX_MOVES];
+        for (int i = 0; i < 20_000; ++i) {
+            int n = game.isGameFinished() ? 0 : game.generateMoves(game.getCurrentPlayer(), moves);
+            if (n == 0 || game.getHistoryLength() > 200) {
+                game.reset();
+            } else if (game.getHistoryLength() > 0 && random.nextInt(4) == 0) {
+                game.undoLastMove();
+            } else {
+                assertTrue(move(game, moves[random.nextInt(n)]));
+            }
+            assertEquals(hashOf(game), game.getHash(), "after action " + i);
+
+            // a few search moves from the new state, which must restore the hash when unmade
+            long before = game.getHash();
+            int plies = 0;
+            for (; plies < 4 && !game.isGameFinished(); ++plies) {
+                int m = game.generateMoves(game.getCurrentPlayer(), searchMoves);
+                if (m == 0) break;
+                game.makeMove(searchMoves[random.nextInt(m)]);
+                assertEquals(hashOf(game), game.getHash(), "after search move of action " + i);
+            }
+            while (plies-- > 0) game.unmakeMove();
+            assertEquals(before, game.getHash());
+        }
+    }
+
+    @Test
+    void testTranspositionsHaveEqualHashes() {
+        // two attacker moves and two defender moves that don't interact, played in both orders
+        GameLogic first = newGame();
+        int[] attackerMoves = new int[GameLogic.MAX_MOVES];
+        int attackerCount = first.generateMoves(first.getSecondPlayer(), attackerMoves);
+        int[] defenderMoves = new int[GameLogic.MAX_MOVES];
+        int defenderCount = first.generateMoves(first.getFirstPlayer(), defenderMoves);
+        for (int a1 = 0; a1 < attackerCount; ++a1) {
+            for (int a2 = 0; a2 < attackerCount; ++a2) {
+                if (Move.from(attackerMoves[a1]) == Move.from(attackerMoves[a2])) continue;
+                for (int d = 0; d + 1 < defenderCount; d += 2) {
+                    int[] order1 = { attackerMoves[a1], defenderMoves[d], attackerMoves[a2], defenderMoves[d + 1] };
+                    int[] order2 = { attackerMoves[a2], defenderMoves[d + 1], attackerMoves[a1], defenderMoves[d] };
+                    GameLogic game1 = newGame();
+                    GameLogic game2 = newGame();
+                    if (!playsWithoutCaptures(game1, order1) || !playsWithoutCaptures(game2, order2)) continue;
+                    if (!GameServer.stateOf(game1).equals(GameServer.stateOf(game2))) continue;
+                    assertEquals(game1.getHash(), game2.getHash());
+                    assertEquals(hashOf(game1), game1.getHash());
+
+                    // a state one move earlier has another hash
+                    game1.undoLastMove();
+                    assertNotEquals(game1.getHash(), game2.getHash());
+                    return;
+                }
+            }
+        }
+        fail("No transposition found");
+    }
+
+    private static boolean playsWithoutCaptures(GameLogic game, int[] moves) {
+        for (int move : moves) {
+            int pieces = game.getPawnCount(game.getFirstPlayer()) + game.getPawnCount(game.getSecondPlayer());
+            if (!move(game, move)) return false;
+            if (pieces != game.getPawnCount(game.getFirstPlayer()) + game.getPawnCount(game.getSecondPlayer()))
+                return false;
+        }
+        return !game.isGameFinished();
+    }
+}